@@ -10,6 +10,7 @@ import org.bson.types.ObjectId;
 import org.example.problems2backend.models.Quiz;
 import org.example.problems2backend.models.QuizResult;
 import org.example.problems2backend.models.User;
+import org.example.problems2backend.service.WeeklyEpoch;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -79,6 +80,7 @@ public class Main {
                         .isBanned(faker.random().nextDouble() < 0.05)
                         .stats(generateStats())
                         .weeklyPoints(faker.number().numberBetween(0, 1000))
+                        .weeklyEpoch(WeeklyEpoch.current())
                         .build())
                 .peek(user -> user.setTitle(User.RankTitle.getTitleByPoints(user.getRankPoints())))
                 .collect(Collectors.toList());
@@ -221,7 +223,8 @@ public class Main {
                         .append("totalAttempts", user.getStats().getTotalAttempts())
                         .append("correctAnswers", user.getStats().getCorrectAnswers())
                         .append("incorrectAnswers", user.getStats().getIncorrectAnswers()))
-                .append("weeklyPoints", user.getWeeklyPoints());
+                .append("weeklyPoints", user.getWeeklyPoints())
+                .append("weeklyEpoch", user.getWeeklyEpoch());
     }
 
     private static Document convertQuizToDocument(Quiz quiz) {
@@ -233,6 +236,7 @@ public class Main {
                 .append("tags", quiz.getTags())
                 .append("timeLimit", quiz.getTimeLimit())
                 .append("questions", convertQuestions(quiz.getQuestions()))
+                .append("questionCount", quiz.getQuestions().size())
                 .append("rules", quiz.getRules())
                 .append("instructions", quiz.getInstructions());
     }
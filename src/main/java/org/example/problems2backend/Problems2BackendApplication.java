@@ -2,8 +2,10 @@ package org.example.problems2backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Problems2BackendApplication {
 
     public static void main(String[] args) {
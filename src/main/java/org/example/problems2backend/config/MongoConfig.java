@@ -1,7 +1,6 @@
 package org.example.problems2backend.config;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import lombok.NonNull;
@@ -39,10 +38,10 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     }
 
     @Bean
-    public MongoCustomConversions customConversions(ObjectMapper objectMapper) {
+    public MongoCustomConversions customConversions() {
         return new MongoCustomConversions(Arrays.asList(
-                new QuestionContentToDocumentConverter(objectMapper),
-                new QuestionDocumentToContentConverter(objectMapper)
+                new QuestionContentToDocumentConverter(),
+                new QuestionDocumentToContentConverter()
         ));
     }
 }
@@ -0,0 +1,59 @@
+package org.example.problems2backend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.problems2backend.models.AttemptSession;
+import org.example.problems2backend.models.PartitionPoints;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.User;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on the listed documents. Automatic index creation is off,
+ * so only documents whose declared indexes are safe to build on the live data are listed here.
+ * Indexes a previous version declared and that were since replaced are dropped once their replacement is built.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+            Quiz.class,
+            AttemptSession.class,
+            User.class,
+            PartitionPoints.class,
+            QuizResult.class
+    );
+
+    private static final Map<Class<?>, List<String>> RETIRED_INDEXES = Map.of(
+            QuizResult.class, List.of("user_history") // replaced by user_attempts
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(document);
+            resolver.resolveIndexFor(document).forEach(indexOperations::ensureIndex);
+
+            List<String> retired = RETIRED_INDEXES.getOrDefault(document, List.of());
+            for (IndexInfo index : indexOperations.getIndexInfo())
+                if (retired.contains(index.getName()))
+                    indexOperations.dropIndex(index.getName());
+        }
+    }
+}
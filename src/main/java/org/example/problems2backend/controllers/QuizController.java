@@ -6,11 +6,15 @@ import org.example.problems2backend.models.User;
 import org.example.problems2backend.requests.SubmitAnswersReq;
 import org.example.problems2backend.responses.*;
 import org.example.problems2backend.service.QuizService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -18,6 +22,8 @@ import java.util.List;
 @AllArgsConstructor
 public class QuizController {
 
+    private static final String ATTEMPT_TOKEN = "attempt_token";
+
     private final QuizService quizService;
 
     @GetMapping
@@ -28,10 +34,14 @@ public class QuizController {
             @RequestParam(required = false) String difficulty,
             @RequestParam(required = false) List<String> tags,
             @RequestParam(required = false) Integer withMinimumNumberOfQuestions,
-            @RequestParam(required = false) Integer withMaximumNumberOfQuestions
+            @RequestParam(required = false) Integer withMaximumNumberOfQuestions,
+            @RequestParam(required = false) String cursor, // presence switches to cursor paging, empty for the first page
+            @RequestParam(defaultValue = "false") boolean withFacets
     ) {
 
-        QuizzesRes quizzes = quizService.getQuizzes(page, pageSize, searchTerm, difficulty, tags, withMinimumNumberOfQuestions, withMaximumNumberOfQuestions);
+        QuizzesRes quizzes = cursor != null ?
+                quizService.getQuizzesAfter(cursor, pageSize, searchTerm, difficulty, tags, withMinimumNumberOfQuestions, withMaximumNumberOfQuestions, withFacets) :
+                quizService.getQuizzes(page, pageSize, searchTerm, difficulty, tags, withMinimumNumberOfQuestions, withMaximumNumberOfQuestions, withFacets);
         return new ResponseEntity<>(quizzes, HttpStatus.OK);
     }
 
@@ -43,6 +53,16 @@ public class QuizController {
     }
 
 
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestionsRes> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        SuggestionsRes suggestions = quizService.suggest(prefix, limit);
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
+
     @GetMapping("/quiz/details/{quizId}")
     public ResponseEntity<QuizDetailsRes> getQuizDetails(@PathVariable String quizId) {
         QuizDetailsRes quizDetailsRes = quizService.getQuizDetails(quizId);
@@ -51,32 +71,65 @@ public class QuizController {
 
 
     @PostMapping("/quiz/start/{quizId}")
-    public ResponseEntity<StartQuizRes> startQuiz(@PathVariable String quizId, @AuthenticationPrincipal User user)
+    public ResponseEntity<byte[]> startQuiz(@PathVariable String quizId, @AuthenticationPrincipal User user)
     {
-        StartQuizRes startQuizRes = quizService.startQuiz(quizId, user);
-        return new ResponseEntity<>(startQuizRes, HttpStatus.CREATED);
+        // the questions come pre-encoded from the compiled quiz cache
+        QuizService.StartedQuiz startedQuiz = quizService.startQuiz(quizId, user);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON);
+        if (startedQuiz.attemptToken() != null)
+            response.header(HttpHeaders.SET_COOKIE, attemptTokenCookie(startedQuiz.attemptToken(), null).toString());
+        return response.body(startedQuiz.questionsJson());
     }
 
 
     @PostMapping("/quiz/stop/{quizId}")
-    public ResponseEntity<Void> stopQuiz(@PathVariable String quizId, @AuthenticationPrincipal User user)
+    public ResponseEntity<Void> stopQuiz(@PathVariable String quizId, @AuthenticationPrincipal User user,
+                                         @CookieValue(name = ATTEMPT_TOKEN, required = false) String attemptToken)
     {
-        quizService.stopQuiz(quizId, user);
-        return new ResponseEntity<>(HttpStatus.CREATED);
+        quizService.stopQuiz(quizId, user, attemptToken);
+        return clearingAttemptToken(attemptToken).build();
     }
 
 
     @PostMapping("/quiz/answer/submit/{quizId}")
-    public ResponseEntity<QuizResultRes> submitAnswer(@PathVariable String quizId, @RequestBody SubmitAnswersReq submitAnswerReq, @AuthenticationPrincipal User user)
+    public ResponseEntity<QuizResultRes> submitAnswer(@PathVariable String quizId, @RequestBody SubmitAnswersReq submitAnswerReq, @AuthenticationPrincipal User user,
+                                                      @CookieValue(name = ATTEMPT_TOKEN, required = false) String attemptToken)
+    {
+        QuizResultRes quizResultRes = quizService.submitAnswer(quizId, submitAnswerReq, user, attemptToken);
+        return clearingAttemptToken(attemptToken).body(quizResultRes);
+    }
+
+    @PostMapping("/quiz/answer/save/{quizId}")
+    public ResponseEntity<Void> saveAnswers(@PathVariable String quizId, @RequestBody SubmitAnswersReq saveAnswersReq, @AuthenticationPrincipal User user)
     {
-        return new ResponseEntity<>(quizService.submitAnswer(quizId, submitAnswerReq, user), HttpStatus.CREATED);
+        quizService.saveAnswers(quizId, saveAnswersReq, user);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    private static ResponseEntity.BodyBuilder clearingAttemptToken(String attemptToken) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (attemptToken != null)
+            response.header(HttpHeaders.SET_COOKIE, attemptTokenCookie("", Duration.ZERO).toString());
+        return response;
+    }
+
+    // only sent back to the quiz endpoints, a null max age keeps it for the browser session
+    private static ResponseCookie attemptTokenCookie(String value, Duration maxAge) {
+        ResponseCookie.ResponseCookieBuilder cookie = ResponseCookie.from(ATTEMPT_TOKEN, value)
+                .httpOnly(true)
+                .secure(true)
+                .path("/api/quizzes/quiz")
+                .sameSite("Strict");
+        if (maxAge != null)
+            cookie.maxAge(maxAge);
+        return cookie.build();
     }
 
     @GetMapping("/quiz/questions/{quizId}")
-    public ResponseEntity<StartQuizRes> getQuestions(@PathVariable String quizId)
+    public ResponseEntity<byte[]> getQuestions(@PathVariable String quizId)
     {
-        StartQuizRes startQuizRes = quizService.getQuestions(quizId);
-        return new ResponseEntity<>(startQuizRes, HttpStatus.OK);
+        byte[] startQuizRes = quizService.getQuestions(quizId);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(startQuizRes);
     }
 
 
@@ -6,10 +6,16 @@ import lombok.AllArgsConstructor;
 import org.example.problems2backend.exceptions.InvalidRefreshTokenException;
 import org.example.problems2backend.models.User;
 import org.example.problems2backend.requests.AuthReq;
+import org.example.problems2backend.responses.ActivityRes;
+import org.example.problems2backend.responses.AttemptHistoryRes;
 import org.example.problems2backend.responses.LeaderboardRes;
+import org.example.problems2backend.responses.PartitionLeaderboardRes;
 import org.example.problems2backend.requests.PasswordChangeReq;
 import org.example.problems2backend.responses.AuthRes;
 import org.example.problems2backend.responses.UserProfileRes;
+import org.example.problems2backend.responses.WeeklyLeaderboardRes;
+import org.example.problems2backend.responses.WeeklySnapshotsRes;
+import org.example.problems2backend.service.PartitionBoards;
 import org.example.problems2backend.service.UserService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -134,6 +140,24 @@ public class UserController {
         return new ResponseEntity<>(userProfileRes, HttpStatus.OK);
     }
 
+    @GetMapping("/user/activity")
+    public ResponseEntity<ActivityRes> getActivity(@RequestParam(defaultValue = "day") String unit,
+                                                   @AuthenticationPrincipal User user)
+    {
+        return new ResponseEntity<>(userService.getActivity(user, unit), HttpStatus.OK);
+    }
+
+    @GetMapping("/user/history")
+    public ResponseEntity<AttemptHistoryRes> getAttemptHistory(
+            @RequestParam(required = false) String cursor, // empty or missing for the first page
+            @RequestParam(defaultValue = "20") Integer pageSize,
+            @RequestParam(required = false) String quizId,
+            @RequestParam(defaultValue = "false") boolean withContent,
+            @AuthenticationPrincipal User user)
+    {
+        return new ResponseEntity<>(userService.getAttemptHistory(user, cursor, pageSize, quizId, withContent), HttpStatus.OK);
+    }
+
     @GetMapping("/user/leaderboard")
     public ResponseEntity<LeaderboardRes> getLeaderboard(@AuthenticationPrincipal User user)
     {
@@ -141,6 +165,38 @@ public class UserController {
         return new ResponseEntity<>(leaderboardRes, HttpStatus.OK);
     }
 
+    @GetMapping("/user/leaderboard/difficulty/{difficulty}")
+    public ResponseEntity<PartitionLeaderboardRes> getDifficultyLeaderboard(@PathVariable String difficulty,
+                                                                           @AuthenticationPrincipal User user)
+    {
+        return new ResponseEntity<>(userService.getPartitionLeaderboard(PartitionBoards.difficulty(difficulty), user), HttpStatus.OK);
+    }
+
+    @GetMapping("/user/leaderboard/tag/{tag}")
+    public ResponseEntity<PartitionLeaderboardRes> getTagLeaderboard(@PathVariable String tag,
+                                                                    @AuthenticationPrincipal User user)
+    {
+        return new ResponseEntity<>(userService.getPartitionLeaderboard(PartitionBoards.tag(tag), user), HttpStatus.OK);
+    }
+
+    @GetMapping("/user/leaderboard/weeks")
+    public ResponseEntity<WeeklySnapshotsRes> getWeeklySnapshots(
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer pageSize)
+    {
+        return new ResponseEntity<>(userService.getWeeklySnapshots(page, pageSize), HttpStatus.OK);
+    }
+
+    @GetMapping("/user/leaderboard/weeks/{week}")
+    public ResponseEntity<WeeklyLeaderboardRes> getWeeklyLeaderboard(
+            @PathVariable int week,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "50") Integer pageSize,
+            @AuthenticationPrincipal User user)
+    {
+        return new ResponseEntity<>(userService.getWeeklyLeaderboard(week, page, pageSize, user), HttpStatus.OK);
+    }
+
     @GetMapping("/user/leaderboard/profile/{username}")
     public ResponseEntity<UserProfileRes> getUserLeaderboardProfile(@PathVariable String username)
     {
@@ -26,13 +26,15 @@ public class GlobalExceptionHandler
         var currentExceptionClass = ex.getClass();
         // exceptions that require BAD_REQUEST
         Set<Class<?>> badRequestEx = Set.of(
-
+                InvalidCursorException.class,
+                InvalidActivityUnitException.class
         );
 
         Set<Class<?>> unauthorizedRequestEx = Set.of(
                 InvalidCredentialsException.class,
                 InvalidRefreshTokenException.class,
-                InvalidAccessTokenException.class
+                InvalidAccessTokenException.class,
+                InvalidAttemptTokenException.class
         );
 
 
@@ -45,7 +47,8 @@ public class GlobalExceptionHandler
         Set<Class<?>> notFoundEx = Set.of(
                 QuizNotFoundException.class,
                 QuizResultNotFoundException.class,
-                UsernameNotFoundException.class
+                UsernameNotFoundException.class,
+                WeeklySnapshotNotFoundException.class
         );
 
         Set<Class<?>> conflictEx = Set.of(
@@ -57,6 +60,10 @@ public class GlobalExceptionHandler
                 InternalServerErrorException.class
         );
 
+        Set<Class<?>> serviceUnavailableEx = Set.of(
+                ServiceOverloadedException.class
+        );
+
 
 
 
@@ -75,6 +82,8 @@ public class GlobalExceptionHandler
             return new ResponseEntity<>(response, HttpStatus.CONFLICT);
         else if (internalServerEx.contains(currentExceptionClass))
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        else if (serviceUnavailableEx.contains(currentExceptionClass))
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
         // TODO: add more else statements
 
 
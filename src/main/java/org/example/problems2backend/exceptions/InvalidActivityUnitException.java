@@ -0,0 +1,9 @@
+package org.example.problems2backend.exceptions;
+
+public class InvalidActivityUnitException
+    extends CustomException
+{
+    public InvalidActivityUnitException(String message) {
+        super(message);
+    }
+}
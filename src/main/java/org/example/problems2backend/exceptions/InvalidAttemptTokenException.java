@@ -0,0 +1,9 @@
+package org.example.problems2backend.exceptions;
+
+public class InvalidAttemptTokenException
+    extends CustomException
+{
+    public InvalidAttemptTokenException(String message) {
+        super(message);
+    }
+}
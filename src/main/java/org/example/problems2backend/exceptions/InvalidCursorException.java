@@ -0,0 +1,9 @@
+package org.example.problems2backend.exceptions;
+
+public class InvalidCursorException
+    extends CustomException
+{
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.problems2backend.exceptions;
+
+public class ServiceOverloadedException
+    extends CustomException
+{
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
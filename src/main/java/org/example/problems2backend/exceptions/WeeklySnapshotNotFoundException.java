@@ -0,0 +1,9 @@
+package org.example.problems2backend.exceptions;
+
+public class WeeklySnapshotNotFoundException
+    extends CustomException
+{
+    public WeeklySnapshotNotFoundException(String message) {
+        super(message);
+    }
+}
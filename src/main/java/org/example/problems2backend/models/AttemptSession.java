@@ -0,0 +1,48 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.requests.AnswerReq;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A quiz attempt in progress, at most one per user.
+ */
+@Document(collection="attempt_sessions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttemptSession
+{
+    @Id
+    private String username;
+    private ObjectId userId;
+    private ObjectId quizId;
+    private Instant startedAt;
+
+    @Indexed(name = "deadline_ttl", expireAfter = "0s") // mongo drops the session once its deadline has passed
+    private Instant deadline;
+
+    private List<AnswerReq> savedAnswers; // latest answers saved during the attempt, graded if it times out
+
+    @Builder.Default
+    private Status status = Status.RUNNING;
+
+    public enum Status {
+        RUNNING,
+        SUBMITTING
+    }
+
+    public boolean isActive(Instant now) {
+        return deadline != null && deadline.isAfter(now);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a one-off job done against the database, such as a backfill, so that it is not run again at the next start.
+ */
+@Document(collection="migrations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Migration
+{
+    @Id
+    private String id;
+    private LocalDateTime doneAt;
+}
@@ -0,0 +1,35 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A user's points on one leaderboard partition, such as the quizzes of a tag, incremented with every submission written.
+ */
+@Document(collection="partition_points")
+@CompoundIndex(name = "partition_board", def = "{ 'partition': 1, 'points': -1, 'userId': 1 }")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionPoints
+{
+    // the partition and the user id, see idOf
+    @Id
+    private String id;
+    private String partition;
+    private ObjectId userId;
+    private String username;
+    private long points;
+
+
+    public static String idOf(String partition, ObjectId userId) {
+        return partition + "|" + userId.toHexString();
+    }
+}
@@ -10,11 +10,17 @@ import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.example.problems2backend.exceptions.QuestionContentException;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
 @Document(collection="quizzes")
+@CompoundIndexes({
+        @CompoundIndex(name = "difficulty_tags_questionCount", def = "{ 'difficulty': 1, 'tags': 1, 'questionCount': 1 }"),
+        @CompoundIndex(name = "tags_questionCount", def = "{ 'tags': 1, 'questionCount': 1 }")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -30,6 +36,7 @@ public class Quiz {
     @Builder.Default
     private Integer timeLimit = 10;
     private List<Question> questions;
+    private Integer questionCount; // denormalized questions.size(), kept in sync on every write
     private String rules;
     private String instructions;
 
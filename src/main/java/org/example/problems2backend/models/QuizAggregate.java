@@ -0,0 +1,35 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals and score distribution of the results of a quiz, incremented with every submission written.
+ */
+@Document(collection="quiz_aggregates")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAggregate
+{
+    @Id
+    private ObjectId quizId;
+    private long attempts;
+    private long totalObtainedPoints;
+    private long totalTimeTaken;
+
+    // ScoreHistogram counts, by bucket index
+    @Builder.Default
+    private Map<String, Long> obtainedPointsHistogram = new HashMap<>();
+    @Builder.Default
+    private Map<String, Long> timeTakenHistogram = new HashMap<>();
+}
@@ -6,12 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection="quiz_results")
+@CompoundIndex(name = "user_attempts", def = "{ 'userId': 1, 'submissionDate': -1, '_id': -1 }")
 @Data
 @Builder
 @NoArgsConstructor
@@ -3,6 +3,7 @@ package org.example.problems2backend.models;
 import lombok.*;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
@@ -15,6 +16,7 @@ import java.util.Collections;
 import java.util.Map;
 
 @Document(collection="users")
+@CompoundIndex(name = "weekly_board", def = "{ 'weeklyEpoch': 1, 'weeklyPoints': -1 }")
 @Data
 @Builder
 @NoArgsConstructor
@@ -52,6 +54,15 @@ public class User
     @Builder.Default
     private Integer weeklyPoints = 0;
 
+    // the week the weekly points were earned in, they count as zero in any other week
+    private Integer weeklyEpoch;
+
+    // the weekly points of the week before, kept until the board of that week is archived
+    private Integer previousWeeklyPoints;
+
+    @Indexed(sparse = true)
+    private Integer previousWeeklyEpoch;
+
 
     @Data
     @Builder
@@ -0,0 +1,43 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lifetime totals and activity of a user's quiz results, updated with every submission written.
+ */
+@Document(collection="user_analytics")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAnalytics
+{
+    @Id
+    private ObjectId userId;
+    private long attempts;
+    private long totalObtainedPoints;
+    private long totalTimeTaken;
+
+    @Builder.Default
+    private Map<String, Long> attemptsByDifficulty = new HashMap<>();
+
+    // attempts by day in the server's time zone, keyed as 2025-03-01
+    @Builder.Default
+    private Map<String, Long> dailyActivity = new HashMap<>();
+
+    // days in a row with an attempt, ending on the last active day
+    private int currentStreak;
+    private int longestStreak;
+
+    // as an epoch day
+    private Long lastActiveDay;
+}
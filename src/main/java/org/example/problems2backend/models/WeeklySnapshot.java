@@ -0,0 +1,30 @@
+package org.example.problems2backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+/**
+ * Final weekly leaderboard of a past week, archived once the week is over.
+ */
+@Document(collection="weekly_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklySnapshot
+{
+    // the WeeklyEpoch of the week
+    @Id
+    private Integer epoch;
+    private LocalDate weekStart;
+    private int users;
+
+    // WeeklyBoard encoded
+    private byte[] board;
+}
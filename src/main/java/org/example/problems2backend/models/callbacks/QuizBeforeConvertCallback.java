@@ -0,0 +1,25 @@
+package org.example.problems2backend.models.callbacks;
+
+import lombok.NonNull;
+import org.example.problems2backend.models.Quiz;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Keeps the denormalized quiz fields that the catalog filters on consistent with the quiz content.
+ */
+@Component
+public class QuizBeforeConvertCallback
+    implements BeforeConvertCallback<Quiz>
+{
+    @Override
+    @NonNull
+    public Quiz onBeforeConvert(@NonNull Quiz quiz, @NonNull String collection) {
+        quiz.setQuestionCount(quiz.getQuestions() != null ? quiz.getQuestions().size() : 0);
+        if (quiz.getDifficulty() != null)
+            quiz.setDifficulty(quiz.getDifficulty().trim().toUpperCase(Locale.ROOT));
+        return quiz;
+    }
+}
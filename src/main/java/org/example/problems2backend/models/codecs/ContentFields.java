@@ -0,0 +1,99 @@
+package org.example.problems2backend.models.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InternalServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields of a stored question content, read in a single pass over the BSON stream whatever their order.
+ */
+final class ContentFields
+{
+    static final String TYPE = "type";
+    static final String ID = "id";
+    static final String QUESTION = "question";
+    static final String OPTIONS = "options";
+    static final String CORRECT_OPTION = "correctOption";
+    static final String CORRECT_ANSWER = "correctAnswer";
+    static final String CORRECT_OPTIONS = "correctOptions";
+
+    String type;
+    ObjectId id;
+    String question;
+    List<String> options;
+    Integer correctOption;
+    String correctAnswer;
+    List<Integer> correctOptions;
+
+
+    static ContentFields read(BsonReader reader) {
+        ContentFields fields = new ContentFields();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case TYPE -> fields.type = reader.readString();
+                case ID -> fields.id = readObjectId(reader);
+                case QUESTION -> fields.question = reader.readString();
+                case OPTIONS -> fields.options = readStrings(reader);
+                case CORRECT_OPTION -> fields.correctOption = readInt(reader);
+                case CORRECT_ANSWER -> fields.correctAnswer = reader.readString();
+                case CORRECT_OPTIONS -> fields.correctOptions = readInts(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return fields;
+    }
+
+    static ObjectId readObjectId(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.STRING ? new ObjectId(reader.readString()) : reader.readObjectId();
+    }
+
+    static Integer readInt(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> Math.toIntExact(reader.readInt64());
+            case DOUBLE -> (int) reader.readDouble();
+            default -> throw new InternalServerErrorException("expected a number but got " + reader.getCurrentBsonType());
+        };
+    }
+
+    static List<String> readStrings(BsonReader reader) {
+        List<String> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                values.add(null);
+            } else {
+                values.add(reader.readString());
+            }
+        }
+        reader.readEndArray();
+        return values;
+    }
+
+    private static List<Integer> readInts(BsonReader reader) {
+        List<Integer> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                values.add(null);
+            } else {
+                values.add(readInt(reader));
+            }
+        }
+        reader.readEndArray();
+        return values;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.problems2backend.models.codecs;
+
+import org.bson.BsonReader;
+import org.bson.codecs.Decoder;
+import org.bson.codecs.DecoderContext;
+import org.example.problems2backend.exceptions.InternalServerErrorException;
+import org.example.problems2backend.models.Quiz;
+
+/**
+ * Polymorphic decoder for question content, the concrete type is picked from the stored "type" field.
+ * Content is written by {@link org.example.problems2backend.models.converters.QuestionContentToDocumentConverter}.
+ */
+public class QuestionContentDecoder implements Decoder<Quiz.Question.Content>
+{
+    public static final String MULTIPLE_CHOICE = "MULTIPLE_CHOICE";
+    public static final String FILL_IN_THE_BLANK = "FILL_IN_THE_BLANK";
+    public static final String MULTIPLE_SELECT = "MULTIPLE_SELECT";
+
+    @Override
+    public Quiz.Question.Content decode(BsonReader reader, DecoderContext decoderContext) {
+        // one pass over the fields, then build the type they describe
+        ContentFields fields = ContentFields.read(reader);
+        if (fields.type == null)
+            throw new InternalServerErrorException("question content has no type");
+        return switch (fields.type) {
+            case MULTIPLE_CHOICE -> Quiz.Question.MultipleChoice.builder()
+                    .id(fields.id)
+                    .question(fields.question)
+                    .options(fields.options)
+                    .correctOption(fields.correctOption)
+                    .build();
+            case FILL_IN_THE_BLANK -> Quiz.Question.FillInTheBlank.builder()
+                    .id(fields.id)
+                    .question(fields.question)
+                    .correctAnswer(fields.correctAnswer)
+                    .build();
+            case MULTIPLE_SELECT -> Quiz.Question.MultipleSelect.builder()
+                    .id(fields.id)
+                    .question(fields.question)
+                    .options(fields.options)
+                    .correctOptions(fields.correctOptions)
+                    .build();
+            default -> throw new InternalServerErrorException("unknown question content type: " + fields.type);
+        };
+    }
+}
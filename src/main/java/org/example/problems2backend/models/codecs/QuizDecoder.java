@@ -0,0 +1,74 @@
+package org.example.problems2backend.models.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.Decoder;
+import org.bson.codecs.DecoderContext;
+import org.example.problems2backend.models.Quiz;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a whole quiz in a single pass over the BSON stream, its question content through {@link QuestionContentDecoder},
+ * without going through an intermediate document or the mapping layer.
+ */
+public class QuizDecoder implements Decoder<Quiz>
+{
+    private final QuestionContentDecoder contentDecoder = new QuestionContentDecoder();
+
+    @Override
+    public Quiz decode(BsonReader reader, DecoderContext decoderContext) {
+        Quiz quiz = Quiz.builder().build();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                if (name.equals("timeLimit"))
+                    quiz.setTimeLimit(null);
+                continue;
+            }
+            switch (name) {
+                case "_id" -> quiz.setId(ContentFields.readObjectId(reader));
+                case "name" -> quiz.setName(reader.readString());
+                case "description" -> quiz.setDescription(reader.readString());
+                case "difficulty" -> quiz.setDifficulty(reader.readString());
+                case "tags" -> quiz.setTags(ContentFields.readStrings(reader));
+                case "timeLimit" -> quiz.setTimeLimit(ContentFields.readInt(reader));
+                case "questions" -> quiz.setQuestions(readQuestions(reader, decoderContext));
+                case "questionCount" -> quiz.setQuestionCount(ContentFields.readInt(reader));
+                case "rules" -> quiz.setRules(reader.readString());
+                case "instructions" -> quiz.setInstructions(reader.readString());
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return quiz;
+    }
+
+    private List<Quiz.Question> readQuestions(BsonReader reader, DecoderContext decoderContext) {
+        List<Quiz.Question> questions = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            Quiz.Question question = new Quiz.Question();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if (reader.getCurrentBsonType() == BsonType.NULL) {
+                    reader.readNull();
+                    continue;
+                }
+                switch (name) {
+                    case "_id" -> question.setId(ContentFields.readObjectId(reader));
+                    case "content" -> question.setContent(contentDecoder.decode(reader, decoderContext));
+                    default -> reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            questions.add(question);
+        }
+        reader.readEndArray();
+        return questions;
+    }
+}
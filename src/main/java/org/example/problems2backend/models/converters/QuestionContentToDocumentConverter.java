@@ -1,25 +1,48 @@
 package org.example.problems2backend.models.converters;
 
 import lombok.NonNull;
+import org.bson.Document;
+import org.example.problems2backend.exceptions.InternalServerErrorException;
 import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.codecs.QuestionContentDecoder;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WritingConverter
-public class QuestionContentToDocumentConverter implements Converter<Quiz.Question.Content, org.bson.Document> {
+public class QuestionContentToDocumentConverter implements Converter<Quiz.Question.Content, Document> {
 
-    private final ObjectMapper objectMapper;
+    @Override
+    @NonNull
+    public Document convert(@NonNull Quiz.Question.Content source) {
+        // the layout QuestionContentDecoder reads
+        Document document = new Document();
+        if (source instanceof Quiz.Question.MultipleChoice) {
+            document.append("type", QuestionContentDecoder.MULTIPLE_CHOICE);
+            appendCommon(document, source);
+            appendIfPresent(document, "options", source.getOptions());
+            appendIfPresent(document, "correctOption", source.getCorrectOption());
+        } else if (source instanceof Quiz.Question.FillInTheBlank) {
+            document.append("type", QuestionContentDecoder.FILL_IN_THE_BLANK);
+            appendCommon(document, source);
+            appendIfPresent(document, "correctAnswer", source.getCorrectAnswer());
+        } else if (source instanceof Quiz.Question.MultipleSelect) {
+            document.append("type", QuestionContentDecoder.MULTIPLE_SELECT);
+            appendCommon(document, source);
+            appendIfPresent(document, "options", source.getOptions());
+            appendIfPresent(document, "correctOptions", source.getCorrectOptions());
+        } else {
+            throw new InternalServerErrorException("unknown question content class: " + source.getClass().getName());
+        }
+        return document;
+    }
 
-    public QuestionContentToDocumentConverter(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    private static void appendCommon(Document document, Quiz.Question.Content source) {
+        appendIfPresent(document, "id", source.getId());
+        appendIfPresent(document, "question", source.getQuestion());
     }
 
-    @Override
-    @NonNull
-    public org.bson.Document convert(@NonNull Quiz.Question.Content source) {
-        return objectMapper.convertValue(source, org.bson.Document.class);
+    private static void appendIfPresent(Document document, String key, Object value) {
+        if (value != null)
+            document.append(key, value);
     }
 }
-
@@ -1,35 +1,73 @@
 package org.example.problems2backend.models.converters;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NonNull;
 import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.example.problems2backend.exceptions.InternalServerErrorException;
 import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.codecs.QuestionContentDecoder;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.ReadingConverter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ReadingConverter
 public class QuestionDocumentToContentConverter implements Converter<Document, Quiz.Question.Content> {
 
-    private final ObjectMapper objectMapper;
-
-    public QuestionDocumentToContentConverter(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-    }
-
     @Override
     @NonNull
     public Quiz.Question.Content convert(Document source) {
         String type = source.getString("type");
-        try {
-            return switch (type) {
-                case "MULTIPLE_CHOICE" -> objectMapper.convertValue(source, Quiz.Question.MultipleChoice.class);
-                case "FILL_IN_THE_BLANK" -> objectMapper.convertValue(source, Quiz.Question.FillInTheBlank.class);
-                case "MULTIPLE_SELECT" -> objectMapper.convertValue(source, Quiz.Question.MultipleSelect.class);
-                default -> throw new IllegalArgumentException("Unknown type: " + type);
-            };
-        } catch (Exception e) {
-            throw new InternalServerErrorException("error converting Document to QuestionContent");
-        }
+        if (type == null)
+            throw new InternalServerErrorException("question content has no type");
+        return switch (type) {
+            case QuestionContentDecoder.MULTIPLE_CHOICE -> Quiz.Question.MultipleChoice.builder()
+                    .id(objectId(source.get("id")))
+                    .question(source.getString("question"))
+                    .options(strings(source.get("options")))
+                    .correctOption(integer(source.get("correctOption")))
+                    .build();
+            case QuestionContentDecoder.FILL_IN_THE_BLANK -> Quiz.Question.FillInTheBlank.builder()
+                    .id(objectId(source.get("id")))
+                    .question(source.getString("question"))
+                    .correctAnswer(source.getString("correctAnswer"))
+                    .build();
+            case QuestionContentDecoder.MULTIPLE_SELECT -> Quiz.Question.MultipleSelect.builder()
+                    .id(objectId(source.get("id")))
+                    .question(source.getString("question"))
+                    .options(strings(source.get("options")))
+                    .correctOptions(integers(source.get("correctOptions")))
+                    .build();
+            default -> throw new InternalServerErrorException("unknown question content type: " + type);
+        };
+    }
+
+    private static ObjectId objectId(Object value) {
+        return value instanceof String id ? new ObjectId(id) : (ObjectId) value;
+    }
+
+    private static Integer integer(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    private static List<String> strings(Object value) {
+        if (value == null)
+            return null;
+        List<?> values = (List<?>) value;
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object element : values)
+            strings.add((String) element);
+        return strings;
+    }
+
+    private static List<Integer> integers(Object value) {
+        if (value == null)
+            return null;
+        List<?> values = (List<?>) value;
+        List<Integer> integers = new ArrayList<>(values.size());
+        for (Object element : values)
+            integers.add(integer(element));
+        return integers;
     }
 }
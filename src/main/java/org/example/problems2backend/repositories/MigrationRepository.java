@@ -0,0 +1,11 @@
+package org.example.problems2backend.repositories;
+
+import org.example.problems2backend.models.Migration;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigrationRepository
+    extends MongoRepository<Migration, String>
+{
+}
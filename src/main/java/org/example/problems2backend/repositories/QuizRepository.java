@@ -1,52 +1,23 @@
 package org.example.problems2backend.repositories;
 
+import org.bson.types.ObjectId;
 import org.example.problems2backend.models.Quiz;
 import org.example.problems2backend.repositories.projections.DifficultyCountProjection;
 import org.example.problems2backend.repositories.projections.DifficultyProjection;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
 import org.example.problems2backend.repositories.projections.TagCountProjection;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
 @Repository
-public interface QuizRepository extends MongoRepository<Quiz, String> {
-
-    @Query("{ $and: [ " +
-            "  { $or: [ " +
-            "    { 'name': { $regex: ?0, $options: 'i' } }, " +
-            "    { 'description': { $regex: ?0, $options: 'i' } } " +
-            "  ]}, " +
-            "  { $or: [ " +
-            "    { 'difficulty': { $regex: ?1, $options: 'i' } }, " +
-            "    { $expr: { $eq: [ ?1, '' ] } } " +
-            "  ]}, " +
-            "  { $expr: { " +
-            "    $and: [ " +
-            "      { $gte: [{ $size: '$questions' }, ?3] }, " +
-            "      { $lte: [{ $size: '$questions' }, ?4] } " +
-            "    ] " +
-            "  }}, " +
-            "  { $or: [ " +
-            "    { 'tags': { $in: ?2 } }, " +
-            "    { $expr: { $eq: [{ $literal: true }, ?5] } } " +
-            "  ]} " +
-            "] }")
-    Page<Quiz> findQuizzesWithFilters(
-            String searchRegex,
-            String difficultyRegex,
-            List<String> tags,
-            int minQuestions,
-            int maxQuestions,
-            boolean ignoreTags,
-            Pageable pageable
-    );
+public interface QuizRepository extends MongoRepository<Quiz, String>, QuizRepositoryCustom {
 
     // Count total quizzes
     @Query(value = "{}", count = true)
@@ -56,8 +27,7 @@ public interface QuizRepository extends MongoRepository<Quiz, String> {
 
     // Count total questions across all quizzes
     @Aggregation(pipeline = {
-            "{ $unwind: '$questions' }", // Unwind the questions array
-            "{ $group: { _id: null, totalQuestions: { $sum: 1 } } }" // Count all questions
+            "{ $group: { _id: null, totalQuestions: { $sum: '$questionCount' } } }" // Sum the denormalized counts
     })
     Long countTotalQuestions();
 
@@ -75,12 +45,15 @@ public interface QuizRepository extends MongoRepository<Quiz, String> {
     })
     List<TagCountProjection> countTags();
 
-    @Query(value = "{ '_id': ObjectId(?0) }", fields = "{ 'difficulty': 1, '_id': 0 }")
-    DifficultyProjection findDifficultyById(String id);
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'difficulty': 1 }")
+    List<DifficultyProjection> findDifficultiesByIds(Collection<ObjectId> ids);
 
-    @Query(value = "{ '_id' : ObjectId(?0) }", fields = "{ 'name': 1, 'description': 1, 'difficulty': 1, 'tags': 1, 'timeLimit': 1, 'questions.content': 1, 'rules': 1, 'instructions': 1 }")
+    @Query(value = "{ '_id' : ObjectId(?0) }", fields = "{ 'name': 1, 'description': 1, 'difficulty': 1, 'tags': 1, 'timeLimit': 1, 'questionCount': 1, 'rules': 1, 'instructions': 1 }")
     Optional<Quiz> findQuizById(String quizId);
 
+    // summaries of the whole catalog, for building the in-memory views
+    List<QuizSummaryProjection> findAllProjectedBy();
+
 
 
 
@@ -0,0 +1,40 @@
+package org.example.problems2backend.repositories;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizzesFacetsRes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface QuizRepositoryCustom
+{
+    /**
+     * catalog filters, every null or empty filter is left out of the query.
+     * Only the summary fields are read.
+     */
+    Page<QuizSummaryProjection> findQuizzesWithFilters(String searchTerm, String difficulty, List<String> tags,
+                                      Integer minQuestions, Integer maxQuestions, Pageable pageable);
+
+    /**
+     * keyset page of {@link #findQuizzesWithFilters} ordered by _id, without skip or count.
+     */
+    List<QuizSummaryProjection> findQuizzesWithFiltersAfter(String searchTerm, String difficulty, List<String> tags,
+                                           Integer minQuestions, Integer maxQuestions, ObjectId after, int limit);
+
+    /**
+     * tag, difficulty and question count bucket counts over the quizzes matching {@link #findQuizzesWithFilters},
+     * computed in a single $facet aggregation.
+     */
+    QuizzesFacetsRes countFacetsWithFilters(String searchTerm, String difficulty, List<String> tags,
+                                            Integer minQuestions, Integer maxQuestions);
+
+    /**
+     * the whole quiz, decoded straight from the raw BSON by {@link org.example.problems2backend.models.codecs.QuizDecoder}
+     * instead of the mapping layer.
+     */
+    Optional<Quiz> findDecodedById(ObjectId quizId);
+}
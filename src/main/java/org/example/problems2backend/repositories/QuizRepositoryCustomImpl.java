@@ -0,0 +1,145 @@
+package org.example.problems2backend.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.codecs.QuizDecoder;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizzesFacetsRes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class QuizRepositoryCustomImpl
+    implements QuizRepositoryCustom
+{
+    private final MongoTemplate mongoTemplate;
+    private final QuizDecoder quizDecoder = new QuizDecoder();
+
+    @Override
+    public Optional<Quiz> findDecodedById(ObjectId quizId) {
+        RawBsonDocument quiz = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Quiz.class))
+                .withDocumentClass(RawBsonDocument.class)
+                .find(new Document("_id", quizId))
+                .first();
+        return Optional.ofNullable(quiz).map(raw -> raw.decode(quizDecoder));
+    }
+
+    @Override
+    public Page<QuizSummaryProjection> findQuizzesWithFilters(String searchTerm, String difficulty, List<String> tags,
+                                             Integer minQuestions, Integer maxQuestions, Pageable pageable) {
+        Query query = new Query(catalogFilters(searchTerm, difficulty, tags, minQuestions, maxQuestions)).with(pageable);
+        List<QuizSummaryProjection> quizzes = findSummaries(query);
+        // the count only runs when the page alone can't tell the total
+        return PageableExecutionUtils.getPage(quizzes, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Quiz.class));
+    }
+
+    @Override
+    public List<QuizSummaryProjection> findQuizzesWithFiltersAfter(String searchTerm, String difficulty, List<String> tags,
+                                                  Integer minQuestions, Integer maxQuestions, ObjectId after, int limit) {
+        Criteria criteria = catalogFilters(searchTerm, difficulty, tags, minQuestions, maxQuestions);
+        if (after != null)
+            criteria = new Criteria().andOperator(criteria, Criteria.where("_id").gt(after));
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(limit);
+        return findSummaries(query);
+    }
+
+    @Override
+    public QuizzesFacetsRes countFacetsWithFilters(String searchTerm, String difficulty, List<String> tags,
+                                                   Integer minQuestions, Integer maxQuestions) {
+        Object[] boundaries = Arrays.stream(QuizzesFacetsRes.QUESTION_COUNT_BOUNDARIES).boxed().toArray();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(catalogFilters(searchTerm, difficulty, tags, minQuestions, maxQuestions)),
+                Aggregation.facet(
+                                Aggregation.unwind("tags"),
+                                Aggregation.sortByCount("tags")
+                        ).as("tags")
+                        .and(Aggregation.sortByCount("difficulty")).as("difficulties")
+                        // a quiz without a question count has none, as in the in-memory index
+                        .and(Aggregation.bucket(ConditionalOperators.ifNull("questionCount").then(0))
+                                .withBoundaries(boundaries)
+                                .withDefaultBucket(Integer.MAX_VALUE) // past the last boundary
+                        ).as("numberOfQuestions")
+        );
+        Document facets = mongoTemplate.aggregate(aggregation, Quiz.class, Document.class).getUniqueMappedResult();
+
+        Map<String, Long> questionCounts = new LinkedHashMap<>();
+        for (int boundary : QuizzesFacetsRes.QUESTION_COUNT_BOUNDARIES)
+            questionCounts.put(QuizzesFacetsRes.questionCountBucket(boundary), 0L);
+        Map<String, Long> tagCounts = new HashMap<>();
+        Map<String, Long> difficultyCounts = new HashMap<>();
+
+        if (facets != null) {
+            for (Document bucket : facets.getList("tags", Document.class))
+                tagCounts.put(String.valueOf(bucket.get("_id")), bucket.get("count", Number.class).longValue());
+            for (Document bucket : facets.getList("difficulties", Document.class))
+                difficultyCounts.put(String.valueOf(bucket.get("_id")), bucket.get("count", Number.class).longValue());
+            for (Document bucket : facets.getList("numberOfQuestions", Document.class)) {
+                int lowerBound = bucket.get("_id", Number.class).intValue();
+                int last = QuizzesFacetsRes.QUESTION_COUNT_BOUNDARIES[QuizzesFacetsRes.QUESTION_COUNT_BOUNDARIES.length - 1];
+                questionCounts.merge(QuizzesFacetsRes.questionCountBucket(Math.min(lowerBound, last)),
+                        bucket.get("count", Number.class).longValue(), Long::sum);
+            }
+        }
+
+        return QuizzesFacetsRes.builder()
+                .tags(tagCounts)
+                .difficulties(difficultyCounts)
+                .numberOfQuestions(questionCounts)
+                .build();
+    }
+
+    // the closed projection limits the returned fields, so questions are neither transferred nor converted
+    private List<QuizSummaryProjection> findSummaries(Query query) {
+        return mongoTemplate.query(Quiz.class)
+                .as(QuizSummaryProjection.class)
+                .matching(query)
+                .all();
+    }
+
+    // equality and range clauses go first so that the compound indexes can serve them
+    private static Criteria catalogFilters(String searchTerm, String difficulty, List<String> tags,
+                                           Integer minQuestions, Integer maxQuestions) {
+        List<Criteria> clauses = new ArrayList<>();
+
+        if (difficulty != null && !difficulty.isBlank())
+            clauses.add(Criteria.where("difficulty").is(difficulty.trim().toUpperCase(Locale.ROOT)));
+
+        if (tags != null && !tags.isEmpty())
+            clauses.add(Criteria.where("tags").in(tags));
+
+        if (minQuestions != null || maxQuestions != null) {
+            Criteria questionCount = Criteria.where("questionCount");
+            if (minQuestions != null)
+                questionCount.gte(minQuestions);
+            if (maxQuestions != null)
+                questionCount.lte(maxQuestions);
+            clauses.add(questionCount);
+        }
+
+        if (searchTerm != null && !searchTerm.isBlank()) {
+            Pattern pattern = Pattern.compile(Pattern.quote(searchTerm), Pattern.CASE_INSENSITIVE);
+            clauses.add(new Criteria().orOperator(
+                    Criteria.where("name").regex(pattern),
+                    Criteria.where("description").regex(pattern)
+            ));
+        }
+
+        return clauses.isEmpty() ? new Criteria() : new Criteria().andOperator(clauses);
+    }
+}
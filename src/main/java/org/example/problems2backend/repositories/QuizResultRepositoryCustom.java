@@ -0,0 +1,19 @@
+package org.example.problems2backend.repositories;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface QuizResultRepositoryCustom
+{
+    /**
+     * keyset page of the user's results, newest first, walking the user_attempts index.
+     * @param quizId only the results of this quiz when not null.
+     * @param beforeDate with beforeId, the sort key of the last result of the previous page, null for the first page.
+     * @param withContent whether the per-question content is read, left null otherwise.
+     */
+    List<QuizResult> findHistoryBefore(ObjectId userId, ObjectId quizId, LocalDateTime beforeDate, ObjectId beforeId,
+                                       int limit, boolean withContent);
+}
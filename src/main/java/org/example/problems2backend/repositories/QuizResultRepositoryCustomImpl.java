@@ -0,0 +1,38 @@
+package org.example.problems2backend.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class QuizResultRepositoryCustomImpl
+    implements QuizResultRepositoryCustom
+{
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<QuizResult> findHistoryBefore(ObjectId userId, ObjectId quizId, LocalDateTime beforeDate, ObjectId beforeId,
+                                              int limit, boolean withContent) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (quizId != null)
+            criteria = criteria.and("quizId").is(quizId);
+        if (beforeDate != null)
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("submissionDate").lt(beforeDate),
+                    Criteria.where("submissionDate").is(beforeDate).and("_id").lt(beforeId)));
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("submissionDate"), Sort.Order.desc("_id")))
+                .limit(limit);
+        if (!withContent)
+            query.fields().exclude("content");
+        return mongoTemplate.find(query, QuizResult.class);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.problems2backend.repositories;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.UserAnalytics;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserAnalyticsRepository
+    extends MongoRepository<UserAnalytics, ObjectId>
+{
+}
@@ -3,7 +3,6 @@ package org.example.problems2backend.repositories;
 import org.bson.types.ObjectId;
 import org.example.problems2backend.models.User;
 import org.example.problems2backend.repositories.projections.PasswordHashProjection;
-import org.example.problems2backend.repositories.projections.UserPointsProjection;
 import org.example.problems2backend.repositories.projections.UserRankProjection;
 import org.example.problems2backend.repositories.projections.UserWeeklyRankProject;
 import org.springframework.data.domain.Sort;
@@ -36,10 +35,6 @@ public interface UserRepository
 
     void deleteByUsername(String username);
 
-    @Query("{ 'username': ?0 }")
-    @Update("{ '$inc': { 'rankPoints': ?1, 'weeklyPoints': ?2 } }")
-    void incrementRankWeeklyPointsAndTotalAttempts(String username, int rankPointsIncrement, int weeklyPointsIncrement);
-
     @Query("{ 'username': ?0 }")
     @Update("{ '$inc': { 'stats.totalAttempts': ?1, 'stats.correctAnswers': ?2, 'stats.incorrectAnswers': ?3 } }")
     void incrementStatsByUsername(String username, int totalAttemptsIncrement, int correctAnswersIncrement, int incorrectAnswersIncrement);
@@ -52,14 +47,18 @@ public interface UserRepository
     List<UserRankProjection> findAllUsersWithRank();
 
     @Aggregation(pipeline = {
-            "{ $sort: { weeklyPoints: -1 } }", // Sort by rankPoints in descending order
+            "{ $match: { weeklyEpoch: ?0 } }", // Only points earned this week count
+            "{ $sort: { weeklyPoints: -1 } }", // Sort by weeklyPoints in descending order
             "{ $limit: 100 }", // Limit to 100 results
             "{ $project: { username: 1, weeklyPoints: 1, _id: 0 } }" // Include only specific fields
     })
-    List<UserWeeklyRankProject> findAllUsersWithWeeklyRank();
+    List<UserWeeklyRankProject> findAllUsersWithWeeklyRank(int weeklyEpoch);
+
+    @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'rankPoints': 1, 'weeklyPoints': 1, 'weeklyEpoch': 1, '_id': 0 }")
+    Optional<User> findPointsByUsername(String username);
 
-    @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'rankPoints': 1,'weeklyPoints': 1, '_id': 0 }")
-    UserPointsProjection findUsernameWithRankAndWeeklyRankPoints(String username);
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = "{ 'username': 1 }")
+    List<User> findUsernamesByIds(List<ObjectId> ids);
 
 
 }
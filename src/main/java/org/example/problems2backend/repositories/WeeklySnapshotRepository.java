@@ -0,0 +1,18 @@
+package org.example.problems2backend.repositories;
+
+import org.example.problems2backend.models.WeeklySnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WeeklySnapshotRepository
+    extends MongoRepository<WeeklySnapshot, Integer>
+{
+    // latest weeks first, without their boards
+    @Query(value = "{}", fields = "{ 'board': 0 }", sort = "{ '_id': -1 }")
+    List<WeeklySnapshot> findWeeks(Pageable pageable);
+}
@@ -1,6 +1,8 @@
 package org.example.problems2backend.repositories.projections;
 
+import org.bson.types.ObjectId;
+
 public interface DifficultyProjection {
+    ObjectId getId();
     String getDifficulty();
 }
-
@@ -0,0 +1,9 @@
+package org.example.problems2backend.repositories.projections;
+
+import org.bson.types.ObjectId;
+
+public interface QuizAttemptCountProjection
+{
+    ObjectId get_id();
+    Long getCount();
+}
@@ -1,6 +0,0 @@
-package org.example.problems2backend.repositories.projections;
-
-public interface QuizAverageResultProjection {
-    Double getAverageObtainedPoints();
-    Double getAverageTimeTaken();
-}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.example.problems2backend.repositories.projections;
+
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+// catalog listing fields only, question bodies never leave the database
+public interface QuizSummaryProjection {
+    ObjectId getId();
+    String getName();
+    String getDescription();
+    String getDifficulty();
+    List<String> getTags();
+    Integer getQuestionCount();
+    Integer getTimeLimit();
+}
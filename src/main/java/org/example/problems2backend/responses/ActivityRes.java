@@ -0,0 +1,18 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@Builder
+public class ActivityRes
+{
+    // day, week or month
+    private String unit;
+
+    // quizzes submitted in each period by its first day, from the user's first period to the current one
+    private Map<LocalDate, Long> periods;
+}
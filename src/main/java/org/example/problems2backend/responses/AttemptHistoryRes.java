@@ -0,0 +1,17 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AttemptHistoryRes
+{
+    // newest first, without their content unless asked for
+    private List<QuizResultRes> attempts;
+
+    // cursor of the next page, null on the last one
+    private String nextCursor;
+}
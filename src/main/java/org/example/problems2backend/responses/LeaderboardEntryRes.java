@@ -0,0 +1,13 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LeaderboardEntryRes
+{
+    private long position;
+    private String username;
+    private long points;
+}
@@ -4,14 +4,21 @@ import lombok.Builder;
 import lombok.Data;
 import org.example.problems2backend.repositories.projections.UserPointsProjection;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
 @Builder
 public class LeaderboardRes
 {
+    // top users by points, in rank order
     private Map<String, Integer> rank;
     private Map<String, Integer> weeklyRank;
     private UserPointsProjection userPoints;
 
+    // position of the user starting at 1, and the users ranked around them, null when not known
+    private Long userRank;
+    private Long userWeeklyRank;
+    private List<LeaderboardEntryRes> aroundUser;
+    private List<LeaderboardEntryRes> aroundUserWeekly;
 }
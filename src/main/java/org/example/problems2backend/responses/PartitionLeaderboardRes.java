@@ -0,0 +1,22 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PartitionLeaderboardRes
+{
+    // such as difficulty:HARD or tag:java
+    private String partition;
+
+    // top users by points on the partition, in rank order
+    private List<LeaderboardEntryRes> top;
+
+    // position and points of the user starting at 1, null when they have none on the partition
+    private Long userRank;
+    private Long userPoints;
+    private List<LeaderboardEntryRes> aroundUser;
+}
@@ -3,6 +3,9 @@ package org.example.problems2backend.responses;
 
 import lombok.Builder;
 import lombok.Data;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
 
 import java.util.List;
 
@@ -20,4 +23,31 @@ public class QuizRes
     private Integer numberOfQuestions;
     private Integer timeLimit;
 
+
+    public static QuizRes of(QuizSummaryProjection quiz) {
+        return of(quiz.getId(), quiz.getName(), quiz.getDescription(), quiz.getDifficulty(), quiz.getTags(),
+                quiz.getQuestionCount(), quiz.getTimeLimit());
+    }
+
+    // a quiz just saved has its question count, one built in memory may only have its questions
+    public static QuizRes of(Quiz quiz) {
+        Integer questionCount = quiz.getQuestionCount() != null ? quiz.getQuestionCount()
+                : quiz.getQuestions() != null ? quiz.getQuestions().size() : null;
+        return of(quiz.getId(), quiz.getName(), quiz.getDescription(), quiz.getDifficulty(), quiz.getTags(),
+                questionCount, quiz.getTimeLimit());
+    }
+
+    // a quiz without a question count lists as having none, like the catalog facets count it
+    private static QuizRes of(ObjectId id, String name, String description, String difficulty, List<String> tags,
+                              Integer questionCount, Integer timeLimit) {
+        return QuizRes.builder()
+                .id(id.toString())
+                .name(name)
+                .description(description)
+                .difficulty(difficulty)
+                .tags(tags)
+                .numberOfQuestions(questionCount != null ? questionCount : 0)
+                .timeLimit(timeLimit)
+                .build();
+    }
 }
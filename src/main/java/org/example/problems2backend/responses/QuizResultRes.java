@@ -21,6 +21,13 @@ public class QuizResultRes
     private int obtainedPoints;
     private Double averageTimeTaken;
     private Double averageObtainedPoints;
+    // share of the quiz's results below this one, from 0 to 100, and the median and 90th percentile of them all
+    private Double obtainedPointsPercentile;
+    private Long medianObtainedPoints;
+    private Long p90ObtainedPoints;
+    private Double timeTakenPercentile;
+    private Long medianTimeTaken;
+    private Long p90TimeTaken;
     private LocalDateTime submissionDate;
 
 }
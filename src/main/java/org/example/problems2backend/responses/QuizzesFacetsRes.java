@@ -0,0 +1,26 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class QuizzesFacetsRes
+{
+    // lower bounds of the question count buckets, the last bucket is open-ended
+    public static final int[] QUESTION_COUNT_BOUNDARIES = {0, 6, 11, 16, 21};
+
+    Map<String, Long> tags;
+    Map<String, Long> difficulties;
+    Map<String, Long> numberOfQuestions; // bucket label ("6-10", "21+", ...) -> matching quizzes
+
+    public static String questionCountBucket(int questionCount) {
+        int last = QUESTION_COUNT_BOUNDARIES.length - 1;
+        for (int i = 0; i < last; i++)
+            if (questionCount < QUESTION_COUNT_BOUNDARIES[i + 1])
+                return QUESTION_COUNT_BOUNDARIES[i] + "-" + (QUESTION_COUNT_BOUNDARIES[i + 1] - 1);
+        return QUESTION_COUNT_BOUNDARIES[last] + "+";
+    }
+}
@@ -12,5 +12,7 @@ public class QuizzesRes
     List<QuizRes> quizzes;
     Integer currentPage;
     Integer totalPages;
+    String nextCursor; // only set in cursor mode, null on the last page
+    QuizzesFacetsRes facets; // counts over all quizzes matching the filters, only when requested
 
 }
@@ -0,0 +1,14 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SuggestionRes
+{
+    private String text;
+    private String type; // QUIZ or TAG
+    private String quizId; // only for QUIZ suggestions
+    private Long popularity;
+}
@@ -0,0 +1,13 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SuggestionsRes
+{
+    private List<SuggestionRes> suggestions;
+}
@@ -10,6 +10,7 @@ import org.example.problems2backend.models.User;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,9 @@ public class UserProfileRes
     private Double accuracyRate;
     private Map<String, Long> quizzesByDifficulty;
     private Map<LocalDateTime, Long> quizzesOverTime;
+    private Map<LocalDate, Long> dailyActivity;
+    private Integer currentStreak;
+    private Integer longestStreak;
     private User.RankTitle rankTitle;
     private Integer nextRankPoints;
     private Integer progressTowardsNextRank;
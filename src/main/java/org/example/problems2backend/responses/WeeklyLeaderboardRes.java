@@ -0,0 +1,23 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class WeeklyLeaderboardRes
+{
+    private int week;
+    private LocalDate weekStart;
+    private int users;
+    private int page;
+    private int pageSize;
+    private List<LeaderboardEntryRes> entries;
+
+    // the user's final position and points that week, null when they did not play
+    private Long userRank;
+    private Integer userPoints;
+}
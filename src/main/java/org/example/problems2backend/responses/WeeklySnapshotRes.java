@@ -0,0 +1,15 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class WeeklySnapshotRes
+{
+    private int week;
+    private LocalDate weekStart;
+    private int users;
+}
@@ -0,0 +1,16 @@
+package org.example.problems2backend.responses;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class WeeklySnapshotsRes
+{
+    // latest weeks first
+    private List<WeeklySnapshotRes> weeks;
+    private int page;
+    private int pageSize;
+}
@@ -0,0 +1,155 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidActivityUnitException;
+import org.example.problems2backend.models.QuizResult;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Number of quizzes a user submitted in each day, week or month of their whole history, counted by mongo with
+ * $dateTrunc on the user_attempts index of the results, which leads with userId and submissionDate.
+ * <p>
+ * Periods that are over no longer change, so their counts are cached per user and unit and only the results submitted
+ * since are counted again.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityHistogram
+{
+    private static final int CACHED_ROLLUPS = 4096;
+    // a period is cached only once the writer had time to flush the results submitted at its end
+    private static final Duration WRITE_DELAY = Duration.ofMinutes(10);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<RollupKey, Rollup> rollups = new LinkedHashMap<>(16, 0.75f, true) { // least recently read first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RollupKey, Rollup> eldest) {
+            return size() > CACHED_ROLLUPS;
+        }
+    };
+
+
+    public enum Unit
+    {
+        DAY, WEEK, MONTH;
+
+        public static Unit of(String unit) {
+            try {
+                return valueOf(unit.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new InvalidActivityUnitException("unit must be one of day, week or month");
+            }
+        }
+
+        /**
+         * @return the first day of the period holding the day, weeks start on monday.
+         */
+        public LocalDate startOf(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    private record RollupKey(ObjectId userId, Unit unit) {}
+
+    // the counts of the periods starting before closedUntil, which no longer change
+    private record Rollup(LocalDate closedUntil, TreeMap<LocalDate, Long> counts) {}
+
+
+    /**
+     * @return the number of quizzes submitted in each period from the user's first one to the current one, by the
+     *         first day of the period, periods without any included.
+     */
+    public TreeMap<LocalDate, Long> of(ObjectId userId, Unit unit) {
+        RollupKey key = new RollupKey(userId, unit);
+        Rollup cached;
+        synchronized (rollups) {
+            cached = rollups.get(key);
+        }
+
+        TreeMap<LocalDate, Long> counts = cached != null ? new TreeMap<>(cached.counts()) : new TreeMap<>();
+        count(userId, unit, cached != null ? cached.closedUntil() : null)
+                .forEach((period, count) -> counts.merge(period, count, Long::sum));
+
+        LocalDate closedUntil = unit.startOf(LocalDateTime.now().minus(WRITE_DELAY).toLocalDate());
+        synchronized (rollups) {
+            rollups.put(key, new Rollup(closedUntil, new TreeMap<>(counts.headMap(closedUntil))));
+        }
+        return dense(counts, unit, unit.startOf(LocalDate.now()));
+    }
+
+
+    // counts the results submitted from the start of the period on, all of them when it is null
+    private Map<LocalDate, Long> count(ObjectId userId, Unit unit, LocalDate from) {
+        Criteria match = Criteria.where("userId").is(userId);
+        if (from != null)
+            match = match.and("submissionDate").gte(from.atStartOfDay());
+
+        ZoneId zone = ZoneId.systemDefault();
+        Document trunc = new Document("date", "$submissionDate")
+                .append("unit", unit.name().toLowerCase(Locale.ROOT))
+                .append("timezone", timezoneOf(zone));
+        if (unit == Unit.WEEK)
+            trunc.append("startOfWeek", "monday");
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(match),
+                context -> new Document("$group", new Document("_id", new Document("$dateTrunc", trunc))
+                        .append("count", new Document("$sum", 1)))
+        );
+
+        Map<LocalDate, Long> counts = new HashMap<>();
+        for (Document period : mongoTemplate.aggregate(aggregation, QuizResult.class, Document.class)) {
+            Date start = period.getDate("_id");
+            if (start != null)
+                counts.put(start.toInstant().atZone(zone).toLocalDate(), ((Number) period.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the counts of every period from the first counted one to the last one, periods without any counted as 0.
+     */
+    static TreeMap<LocalDate, Long> dense(TreeMap<LocalDate, Long> counts, Unit unit, LocalDate last) {
+        TreeMap<LocalDate, Long> dense = new TreeMap<>();
+        if (counts.isEmpty())
+            return dense;
+        LocalDate end = counts.lastKey().isAfter(last) ? counts.lastKey() : last;
+        for (LocalDate period = counts.firstKey(); !period.isAfter(end); period = unit.next(period))
+            dense.put(period, counts.getOrDefault(period, 0L));
+        return dense;
+    }
+
+    // submission dates are stored as instants of the server's local times, so periods are cut in its time zone
+    private static String timezoneOf(ZoneId zone) {
+        if (zone instanceof ZoneOffset offset)
+            return offset == ZoneOffset.UTC ? "+00:00" : offset.getId();
+        return zone.getId();
+    }
+}
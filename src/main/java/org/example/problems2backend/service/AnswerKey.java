@@ -0,0 +1,174 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidAnswerFormatException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.requests.AnswerReq;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The correct answers of a quiz compiled into flat arrays indexed by question slot (the question's position in the quiz).
+ * Question ids are found through an open-addressing table, so grading allocates nothing per answer.
+ */
+public final class AnswerKey
+{
+    private static final byte MULTIPLE_CHOICE = 1;
+    private static final byte FILL_IN_THE_BLANK = 2;
+    private static final byte MULTIPLE_SELECT = 3;
+
+    private static final long UNMATCHABLE = -1L; // options past the 64th, never matches
+
+    private final ObjectId[] questionIds;
+    private final byte[] types;
+    private final int[] correctOptions;  // multiple choice, -1 when missing
+    private final String[] correctAnswers; // fill in the blank, stripped
+    private final long[] correctMasks;  // multiple select, bit i set when option i is correct
+
+    private final String[] tableKeys; // hex question id, null for empty cells
+    private final int[] tableSlots;
+    private final int tableMask;
+
+
+    private AnswerKey(int size) {
+        questionIds = new ObjectId[size];
+        types = new byte[size];
+        correctOptions = new int[size];
+        correctAnswers = new String[size];
+        correctMasks = new long[size];
+        int capacity = Integer.highestOneBit(Math.max(1, size) * 2) << 1; // load factor at most 1/2
+        tableKeys = new String[capacity];
+        tableSlots = new int[capacity];
+        tableMask = capacity - 1;
+    }
+
+    public static AnswerKey compile(List<Quiz.Question> questions) {
+        AnswerKey key = new AnswerKey(questions == null ? 0 : questions.size());
+        for (int slot = 0; slot < key.size(); slot++) {
+            Quiz.Question question = questions.get(slot);
+            key.questionIds[slot] = question.getId();
+            key.correctOptions[slot] = -1;
+
+            Quiz.Question.Content content = question.getContent();
+            if (content instanceof Quiz.Question.MultipleChoice) {
+                key.types[slot] = MULTIPLE_CHOICE;
+                if (content.getCorrectOption() != null)
+                    key.correctOptions[slot] = content.getCorrectOption();
+            } else if (content instanceof Quiz.Question.FillInTheBlank) {
+                key.types[slot] = FILL_IN_THE_BLANK;
+                if (content.getCorrectAnswer() != null)
+                    key.correctAnswers[slot] = content.getCorrectAnswer().strip();
+            } else if (content instanceof Quiz.Question.MultipleSelect) {
+                key.types[slot] = MULTIPLE_SELECT;
+                key.correctMasks[slot] = mask(content.getCorrectOptions());
+            }
+
+            String id = question.getId().toHexString();
+            int cell = id.hashCode() & key.tableMask;
+            while (key.tableKeys[cell] != null)
+                cell = (cell + 1) & key.tableMask;
+            key.tableKeys[cell] = id;
+            key.tableSlots[cell] = slot;
+        }
+        return key;
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public ObjectId questionId(int slot) {
+        return questionIds[slot];
+    }
+
+    /**
+     * @return a hash of the correct answers, changes when any of them does.
+     */
+    public int fingerprint() {
+        int hash = Arrays.hashCode(questionIds);
+        hash = 31 * hash + Arrays.hashCode(types);
+        hash = 31 * hash + Arrays.hashCode(correctOptions);
+        hash = 31 * hash + Arrays.hashCode(correctAnswers);
+        return 31 * hash + Arrays.hashCode(correctMasks);
+    }
+
+    /**
+     * Grades a full set of answers, given in any order.
+     * @return whether the answer to each question is correct, indexed by slot.
+     * @throws InvalidAnswerFormatException when the answers are not exactly one per question.
+     */
+    public boolean[] grade(List<AnswerReq> answers) {
+        if (answers == null || answers.size() != size())
+            throw new InvalidAnswerFormatException("there is more or less answers than questions");
+        return gradeAnswered(answers);
+    }
+
+    /**
+     * Grades answers to some of the questions, given in any order. Unanswered questions are incorrect.
+     * @throws InvalidAnswerFormatException when an answer refers to no question, or a question is answered twice.
+     */
+    public boolean[] gradeAnswered(List<AnswerReq> answers) {
+        boolean[] answered = new boolean[size()];
+        boolean[] correct = new boolean[size()];
+        if (answers == null)
+            return correct;
+        for (AnswerReq answer : answers) {
+            int slot = slotOf(answer.getQuestionId());
+            if (slot < 0)
+                throw new InvalidAnswerFormatException("answer id didn't match question id");
+            if (answered[slot])
+                throw new InvalidAnswerFormatException("question answered more than once");
+            answered[slot] = true;
+            correct[slot] = isCorrect(slot, answer);
+        }
+        return correct;
+    }
+
+    /**
+     * @return the slot of the question, or -1 when the quiz has no such question.
+     */
+    public int slotOf(String questionId) {
+        if (questionId == null)
+            return -1;
+        for (int cell = questionId.hashCode() & tableMask; tableKeys[cell] != null; cell = (cell + 1) & tableMask)
+            if (tableKeys[cell].equals(questionId))
+                return tableSlots[cell];
+        return -1;
+    }
+
+    public boolean isCorrect(int slot, AnswerReq answer) {
+        return switch (types[slot]) {
+            case MULTIPLE_CHOICE -> answer.getSelectedOption() != null && answer.getSelectedOption() == correctOptions[slot];
+            case FILL_IN_THE_BLANK -> matchesIgnoringCaseAndSurroundingSpace(correctAnswers[slot], answer.getCorrectAnswer());
+            case MULTIPLE_SELECT -> correctMasks[slot] != UNMATCHABLE && mask(answer.getCorrectOptions()) == correctMasks[slot];
+            default -> false;
+        };
+    }
+
+
+    private static long mask(List<Integer> options) {
+        if (options == null)
+            return 0;
+        long mask = 0;
+        for (int i = 0; i < options.size(); i++) {
+            Integer option = options.get(i);
+            if (option == null || option < 0 || option >= Long.SIZE)
+                return UNMATCHABLE;
+            mask |= 1L << option;
+        }
+        return mask;
+    }
+
+    private static boolean matchesIgnoringCaseAndSurroundingSpace(String expected, String answer) {
+        if (expected == null || answer == null)
+            return false;
+        int from = 0;
+        int to = answer.length();
+        while (from < to && Character.isWhitespace(answer.charAt(from)))
+            from++;
+        while (to > from && Character.isWhitespace(answer.charAt(to - 1)))
+            to--;
+        return to - from == expected.length() && answer.regionMatches(true, from, expected, 0, expected.length());
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.problems2backend.service;
+
+import org.example.problems2backend.models.AttemptSession;
+
+/**
+ * Published when an attempt reaches its deadline while auto-submit is on.
+ * @param attempt the expired attempt, with the answers saved during it.
+ */
+public record AttemptExpiredEvent(AttemptSession attempt) {}
@@ -0,0 +1,73 @@
+package org.example.problems2backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.problems2backend.models.AttemptSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ends every attempt at its deadline through a timing wheel, instead of sweeping all attempts periodically.
+ * With auto-submit on, the expired attempt is handed over as an {@link AttemptExpiredEvent} to be graded.
+ */
+@Slf4j
+@Component
+public class AttemptExpiry
+{
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final int TICKS_PER_WHEEL = 1024; // one turn is about 100 seconds
+
+    private final AttemptSessionStore attemptSessionStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean autoSubmit;
+
+    private final ExecutorService expiredAttempts = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "attempt-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HashedTimingWheel wheel = new HashedTimingWheel("attempt-expiry-wheel", TICK, TICKS_PER_WHEEL, expiredAttempts);
+    private final ConcurrentHashMap<String, HashedTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>(); // by username
+
+
+    public AttemptExpiry(AttemptSessionStore attemptSessionStore, ApplicationEventPublisher eventPublisher,
+                         @Value("${spring.application.attempt_auto_submit:false}") boolean autoSubmit) {
+        this.attemptSessionStore = attemptSessionStore;
+        this.eventPublisher = eventPublisher;
+        this.autoSubmit = autoSubmit;
+    }
+
+    public void schedule(AttemptSession attempt) {
+        timeouts.compute(attempt.getUsername(), (username, previous) -> {
+            if (previous != null)
+                previous.cancel();
+            return wheel.schedule(attempt.getDeadline(), () -> expire(attempt));
+        });
+    }
+
+    public void cancel(String username) {
+        HashedTimingWheel.Timeout timeout = timeouts.remove(username);
+        if (timeout != null)
+            timeout.cancel();
+    }
+
+    private void expire(AttemptSession attempt) {
+        timeouts.computeIfPresent(attempt.getUsername(), (username, timeout) -> timeout.isExpired() ? null : timeout);
+        attemptSessionStore.expire(attempt.getUsername(), attempt.getDeadline()).ifPresent(expired -> {
+            if (autoSubmit)
+                eventPublisher.publishEvent(new AttemptExpiredEvent(expired));
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        expiredAttempts.shutdown();
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.AttemptSession;
+import org.example.problems2backend.requests.AnswerReq;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where running quiz attempts are kept. Every operation is a single atomic step on the backing store.
+ * <p>
+ * Each user's attempt moves through NONE → RUNNING(quizId, deadline) → SUBMITTING → DONE, and DONE is NONE again.
+ * A transition only happens from the state it expects, so of two concurrent requests for the same attempt only one wins.
+ */
+public interface AttemptSessionStore
+{
+    /**
+     * NONE → RUNNING. A RUNNING attempt past its deadline counts as NONE.
+     * @return false when the user already has an attempt running or being submitted.
+     */
+    boolean start(AttemptSession session);
+
+    /**
+     * RUNNING → DONE, when the user stops the attempt on the given quiz.
+     * @return the ended attempt, empty when no attempt on that quiz was running.
+     */
+    Optional<AttemptSession> finish(String username, ObjectId quizId);
+
+    /**
+     * RUNNING → SUBMITTING, reserves the attempt on the given quiz for grading.
+     * @return the reserved attempt, empty when no attempt on that quiz was running.
+     */
+    Optional<AttemptSession> beginSubmit(String username, ObjectId quizId);
+
+    /**
+     * SUBMITTING → DONE, once the result is recorded.
+     */
+    void completeSubmit(AttemptSession attempt);
+
+    /**
+     * SUBMITTING → RUNNING, when the result could not be recorded, so the user can submit again.
+     */
+    void abortSubmit(AttemptSession attempt);
+
+    /**
+     * Replaces the answers saved so far in the running attempt on the given quiz.
+     * @return false when no such attempt is running.
+     */
+    boolean saveAnswers(String username, ObjectId quizId, List<AnswerReq> answers);
+
+    /**
+     * RUNNING → DONE for an attempt that reached its deadline, unless it was ended or restarted meanwhile.
+     * @return the removed attempt, with its saved answers.
+     */
+    Optional<AttemptSession> expire(String username, Instant deadline);
+}
@@ -0,0 +1,12 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * What a signed attempt token says about the attempt it stands for.
+ * @param id random, tells apart the attempts of a user on the same quiz.
+ * @param quizVersion {@link CompiledQuizCache.CompiledQuiz#version()} of the quiz when the attempt started.
+ */
+public record AttemptToken(long id, ObjectId userId, ObjectId quizId, int quizVersion, Instant startedAt, Instant deadline) {}
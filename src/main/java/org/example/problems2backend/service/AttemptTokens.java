@@ -0,0 +1,87 @@
+package org.example.problems2backend.service;
+
+import io.jsonwebtoken.JwtException;
+import org.example.problems2backend.exceptions.InvalidAttemptTokenException;
+import org.example.problems2backend.exceptions.InvalidQuizStateException;
+import org.example.problems2backend.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Attempts carried by the client as signed tokens instead of being kept by the server, enabled with
+ * spring.application.attempt_mode=token. Running attempts then cost nothing and survive restarts, but a user may run
+ * several of them at once and answers cannot be saved along the way.
+ * <p>
+ * Only redeemed tokens are remembered, until they expire, so that each one is stopped or submitted once. That set is
+ * kept by each instance, so a token replayed on another instance is not caught.
+ */
+@Component
+public class AttemptTokens
+{
+    private final JwtService jwtService;
+    private final boolean enabled;
+
+    private final ConcurrentHashMap<Long, Long> redeemed = new ConcurrentHashMap<>(); // token id -> expiry in epoch millis
+
+
+    public AttemptTokens(JwtService jwtService, @Value("${spring.application.attempt_mode:session}") String attemptMode) {
+        this.jwtService = jwtService;
+        this.enabled = "token".equals(attemptMode);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issue(CompiledQuizCache.CompiledQuiz quiz, User user, Instant now) {
+        Instant startedAt = now.truncatedTo(ChronoUnit.MILLIS);
+        // the token expiry only keeps seconds, round up rather than cut the attempt short
+        Instant deadline = startedAt.plus(Duration.ofMinutes(quiz.timeLimit())).plusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        return jwtService.generateAttemptToken(new AttemptToken(ThreadLocalRandom.current().nextLong(),
+                user.getId(), quiz.id(), quiz.version(), startedAt, deadline));
+    }
+
+    /**
+     * Checks that the token is a running attempt of the user on the quiz, and marks it used.
+     * @throws InvalidAttemptTokenException when the token is missing, forged, expired or made for another attempt.
+     * @throws InvalidQuizStateException when the token was redeemed already, or the quiz changed since it was issued.
+     */
+    public AttemptToken redeem(String token, CompiledQuizCache.CompiledQuiz quiz, User user) {
+        if (token == null)
+            throw new InvalidAttemptTokenException("no attempt token present in request");
+        AttemptToken attempt;
+        try {
+            attempt = jwtService.parseAttemptToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidAttemptTokenException("attempt token is invalid or expired");
+        }
+        if (!attempt.userId().equals(user.getId()) || !attempt.quizId().equals(quiz.id()))
+            throw new InvalidAttemptTokenException("attempt token was issued for another user or quiz");
+        if (attempt.quizVersion() != quiz.version())
+            throw new InvalidQuizStateException("quiz changed since it was started, please start it again");
+        if (redeemed.putIfAbsent(attempt.id(), attempt.deadline().toEpochMilli()) != null)
+            throw new InvalidQuizStateException("can't use attempt, it's stopped or submitted already");
+        return attempt;
+    }
+
+    /**
+     * Makes a redeemed token usable again, when what it was redeemed for failed.
+     */
+    public void release(AttemptToken attempt) {
+        redeemed.remove(attempt.id());
+    }
+
+    // an expired token is refused before the set is looked at, so it no longer needs remembering
+    @Scheduled(fixedDelay = 10_000)
+    public void pruneRedeemed() {
+        long now = System.currentTimeMillis();
+        redeemed.values().removeIf(expiry -> expiry <= now);
+    }
+}
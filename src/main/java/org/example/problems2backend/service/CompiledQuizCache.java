@@ -0,0 +1,172 @@
+package org.example.problems2backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.QuizNotFoundException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.responses.ContentRes;
+import org.example.problems2backend.responses.QuestionRes;
+import org.example.problems2backend.responses.StartQuizRes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded LRU cache of quizzes compiled for serving and grading: the questions without their answers, already
+ * encoded as JSON, and the answer key.
+ * Entries are dropped by the quiz change listener whenever a quiz is saved or deleted, and expire after the ttl so
+ * that quizzes edited around the mapping layer or on another instance are picked up.
+ */
+@Component
+public class CompiledQuizCache
+{
+    private final QuizRepository quizRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<ObjectId, Cached> compiled;
+    private final long ttlNanos;
+
+    // bumped on every invalidation, a load that raced with one is served but not cached
+    private long invalidations = 0;
+
+
+    /**
+     * @param pointsPerQuestion points won for a correct answer, and lost for a wrong one.
+     * @param questionsJson UTF-8 encoded {@link StartQuizRes} holding the sanitized questions.
+     * @param version hash of the questions and their answers, tells apart the contents a quiz had over time.
+     */
+    public record CompiledQuiz(ObjectId id, int timeLimit, int pointsPerQuestion, byte[] questionsJson, AnswerKey answerKey,
+                               int version, List<String> partitions) {}
+
+    private record Cached(CompiledQuiz quiz, long expiresAt) {}
+
+
+    public CompiledQuizCache(QuizRepository quizRepository, ObjectMapper objectMapper,
+                             @Value("${spring.application.compiled_quiz_cache_size:512}") int maxEntries,
+                             @Value("${spring.application.compiled_quiz_ttl_ms:600000}") long ttlMillis) {
+        this.quizRepository = quizRepository;
+        this.objectMapper = objectMapper;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.compiled = new LinkedHashMap<>(16, 0.75f, true) { // access order, so the eldest entry is the least recently used
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ObjectId, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the compiled quiz, loaded from the database only on a miss or once expired.
+     * @throws QuizNotFoundException when there is no such quiz.
+     */
+    public CompiledQuiz get(String quizId) {
+        if (!ObjectId.isValid(quizId))
+            throw new QuizNotFoundException("quiz not found");
+        ObjectId id = new ObjectId(quizId);
+
+        long seen;
+        synchronized (compiled) {
+            Cached hit = compiled.get(id);
+            if (hit != null && hit.expiresAt() - System.nanoTime() > 0)
+                return hit.quiz();
+            seen = invalidations;
+        }
+
+        Quiz quiz = quizRepository.findDecodedById(id).orElseThrow(() -> new QuizNotFoundException("quiz not found"));
+        CompiledQuiz loaded = compile(quiz);
+
+        synchronized (compiled) {
+            if (seen == invalidations)
+                compiled.put(id, new Cached(loaded, System.nanoTime() + ttlNanos));
+        }
+        return loaded;
+    }
+
+    public void invalidate(ObjectId quizId) {
+        synchronized (compiled) {
+            invalidations++;
+            compiled.remove(quizId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (compiled) {
+            invalidations++;
+            compiled.clear();
+        }
+    }
+
+
+    private CompiledQuiz compile(Quiz quiz) {
+        List<QuestionRes> questions = quiz.getQuestions() == null ? List.of() : quiz.getQuestions().stream()
+                .map(CompiledQuizCache::sanitizeQuestion)
+                .toList();
+        try {
+            byte[] questionsJson = objectMapper.writeValueAsBytes(StartQuizRes.builder()
+                    .questionsWithoutCorrectAnswers(questions)
+                    .build());
+            AnswerKey answerKey = AnswerKey.compile(quiz.getQuestions());
+            return new CompiledQuiz(quiz.getId(), quiz.getTimeLimit(), pointsPerQuestion(quiz.getDifficulty(), questions.size()),
+                    questionsJson, answerKey, 31 * Arrays.hashCode(questionsJson) + answerKey.fingerprint(),
+                    PartitionBoards.partitionsOf(quiz.getDifficulty(), quiz.getTags()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not encode questions of quiz " + quiz.getId(), e);
+        }
+    }
+
+    private static int pointsPerQuestion(String difficulty, int questions) {
+        if (questions == 0)
+            return 0;
+        // Calculate points per question based on difficulty
+        return switch (difficulty != null ? difficulty : "") {
+            case "HARD" -> 45 / questions;
+            case "MEDIUM" -> 30 / questions;
+            default -> 20 / questions;
+        };
+    }
+
+    private static QuestionRes sanitizeQuestion(Quiz.Question question) {
+        QuestionRes sanitizedQuestion = QuestionRes.builder().build();
+        sanitizedQuestion.setId(question.getId().toString());
+
+        // Sanitize the content based on its type
+        if (question.getContent() instanceof Quiz.Question.MultipleChoice) {
+            sanitizedQuestion.setContent(sanitizeMultipleChoice(question.getContent()));
+        } else if (question.getContent() instanceof Quiz.Question.FillInTheBlank) {
+            sanitizedQuestion.setContent(sanitizeFillInTheBlank(question.getContent()));
+        } else if (question.getContent() instanceof Quiz.Question.MultipleSelect) {
+            sanitizedQuestion.setContent(sanitizeMultipleSelect(question.getContent()));
+        }
+
+        return sanitizedQuestion;
+    }
+    private static ContentRes sanitizeMultipleChoice(Quiz.Question.Content multipleChoice) {
+        return ContentRes.builder()
+                .id(multipleChoice.getId().toString())
+                .type("MULTIPLE_CHOICE")
+                .question(multipleChoice.getQuestion())
+                .options(multipleChoice.getOptions())
+                .build();
+    }
+    private static ContentRes sanitizeFillInTheBlank(Quiz.Question.Content fillInTheBlank) {
+        return ContentRes.builder()
+                .id(fillInTheBlank.getId().toString())
+                .type("FILL_IN_THE_BLANK")
+                .question(fillInTheBlank.getQuestion())
+                .build();
+    }
+    private static ContentRes sanitizeMultipleSelect(Quiz.Question.Content multipleSelect) {
+        return ContentRes.builder()
+                .id(multipleSelect.getId().toString())
+                .type("MULTIPLE_SELECT")
+                .question(multipleSelect.getQuestion())
+                .options(multipleSelect.getOptions())
+                .build();
+    }
+}
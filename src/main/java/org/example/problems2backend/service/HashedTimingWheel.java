@@ -0,0 +1,195 @@
+package org.example.problems2backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel: scheduling and cancelling a timeout are O(1), and a tick only looks at the timeouts hashed to it.
+ * A single worker thread turns the wheel; expired tasks are handed to the given executor so they cannot stall it.
+ */
+@Slf4j
+public final class HashedTimingWheel
+{
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+
+    // filled by any thread, drained by the worker at each tick
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick = 0; // worker only
+
+
+    public final class Timeout
+    {
+        private final long deadlineNanos;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // worker only
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(long deadlineNanos, Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+
+        /**
+         * @return false when the task already ran or was cancelled before.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED))
+                return false;
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private static final class Bucket
+    {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null)
+                head = timeout;
+            else
+                tail.next = timeout;
+            tail = timeout;
+        }
+
+        private Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous == null)
+                head = next;
+            else
+                timeout.previous.next = next;
+            if (next == null)
+                tail = timeout.previous;
+            else
+                next.previous = timeout.previous;
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+            return next;
+        }
+    }
+
+
+    /**
+     * @param tick resolution of the wheel, a timeout fires at most one tick after its deadline.
+     * @param ticksPerWheel number of buckets, rounded up to a power of two.
+     */
+    public HashedTimingWheel(String name, Duration tick, int ticksPerWheel, Executor executor) {
+        this.tickNanos = tick.toNanos();
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Instant deadline, Runnable task) {
+        long delay = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+        Timeout timeout = new Timeout(System.nanoTime() + delay, task);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startNanos + (tick + 1) * tickNanos;
+            long sleep;
+            while (running && (sleep = tickDeadline - System.nanoTime()) > 0)
+                LockSupport.parkNanos(this, sleep);
+            if (!running)
+                return;
+
+            try {
+                removeCancelled();
+                transferScheduled();
+                expire(wheel[(int) (tick & mask)]);
+            } catch (RuntimeException e) {
+                log.error("timing wheel tick failed", e);
+            }
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null)
+            if (timeout.bucket != null)
+                timeout.bucket.remove(timeout);
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() != PENDING)
+                continue;
+            long dueTick = (timeout.deadlineNanos - startNanos) / tickNanos; // the tick processed just after the deadline
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (Math.max(dueTick, tick) & mask)].add(timeout); // overdue ones go to the current tick
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                timeout = timeout.next;
+                continue;
+            }
+            Timeout next = bucket.remove(timeout);
+            if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                Runnable task = timeout.task;
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        log.error("timing wheel task failed", e);
+                    }
+                });
+            }
+            timeout = next;
+        }
+    }
+}
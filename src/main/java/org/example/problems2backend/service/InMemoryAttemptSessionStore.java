@@ -0,0 +1,157 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.AttemptSession;
+import org.example.problems2backend.requests.AnswerReq;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Attempts kept in this JVM only. Needs sticky sessions when running several instances, and forgets attempts on restart.
+ * Ended attempts are removed by {@link AttemptExpiry} at their deadline.
+ * <p>
+ * Every user has an atomic reference to the state of their attempt, and every transition is a compare-and-set on it.
+ * DONE is terminal for a reference: it is then unlinked from the map, and whoever still holds it retries on a fresh one.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.application.attempt_session_store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryAttemptSessionStore
+    implements AttemptSessionStore
+{
+    private final ConcurrentHashMap<String, AtomicReference<State>> states = new ConcurrentHashMap<>();
+
+
+    private sealed interface State permits None, Running, Submitting, Done {}
+
+    private record None() implements State {}
+
+    private record Running(AttemptSession attempt) implements State {}
+
+    private record Submitting(AttemptSession attempt) implements State {}
+
+    private record Done() implements State {}
+
+    private static final None NONE = new None();
+    private static final Done DONE = new Done();
+
+
+    @Override
+    public boolean start(AttemptSession session) {
+        Instant now = Instant.now();
+        Running running = new Running(session);
+        while (true) {
+            AtomicReference<State> reference = reference(session.getUsername());
+            State current = reference.get();
+            if (current instanceof Done) {
+                unlink(session.getUsername(), reference);
+                continue;
+            }
+            if (current instanceof Submitting || current instanceof Running r && r.attempt().isActive(now))
+                return false;
+            if (reference.compareAndSet(current, running))
+                return true;
+        }
+    }
+
+    @Override
+    public Optional<AttemptSession> finish(String username, ObjectId quizId) {
+        Instant now = Instant.now();
+        return end(username, attempt -> attempt.isActive(now) && attempt.getQuizId().equals(quizId));
+    }
+
+    @Override
+    public Optional<AttemptSession> beginSubmit(String username, ObjectId quizId) {
+        Instant now = Instant.now();
+        AtomicReference<State> reference = states.get(username);
+        while (reference != null) {
+            State current = reference.get();
+            if (!(current instanceof Running running) || !running.attempt().isActive(now)
+                    || !running.attempt().getQuizId().equals(quizId))
+                return Optional.empty();
+            if (reference.compareAndSet(current, new Submitting(running.attempt())))
+                return Optional.of(running.attempt());
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void completeSubmit(AttemptSession attempt) {
+        AtomicReference<State> reference = states.get(attempt.getUsername());
+        if (reference == null)
+            return;
+        State current = reference.get();
+        if (current instanceof Submitting submitting && submitting.attempt() == attempt
+                && reference.compareAndSet(current, DONE))
+            unlink(attempt.getUsername(), reference);
+    }
+
+    @Override
+    public void abortSubmit(AttemptSession attempt) {
+        AtomicReference<State> reference = states.get(attempt.getUsername());
+        if (reference == null)
+            return;
+        State current = reference.get();
+        if (current instanceof Submitting submitting && submitting.attempt() == attempt)
+            reference.compareAndSet(current, new Running(attempt));
+    }
+
+    @Override
+    public boolean saveAnswers(String username, ObjectId quizId, List<AnswerReq> answers) {
+        Instant now = Instant.now();
+        AtomicReference<State> reference = states.get(username);
+        while (reference != null) {
+            State current = reference.get();
+            if (!(current instanceof Running running) || !running.attempt().isActive(now)
+                    || !running.attempt().getQuizId().equals(quizId))
+                return false;
+            AttemptSession attempt = running.attempt();
+            AttemptSession saved = AttemptSession.builder()
+                    .username(attempt.getUsername())
+                    .userId(attempt.getUserId())
+                    .quizId(attempt.getQuizId())
+                    .startedAt(attempt.getStartedAt())
+                    .deadline(attempt.getDeadline())
+                    .savedAnswers(List.copyOf(answers))
+                    .build();
+            if (reference.compareAndSet(current, new Running(saved)))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Optional<AttemptSession> expire(String username, Instant deadline) {
+        return end(username, attempt -> attempt.getDeadline().equals(deadline));
+    }
+
+
+    // RUNNING -> DONE for an attempt matching the condition
+    private Optional<AttemptSession> end(String username, Predicate<AttemptSession> condition) {
+        AtomicReference<State> reference = states.get(username);
+        while (reference != null) {
+            State current = reference.get();
+            if (!(current instanceof Running running) || !condition.test(running.attempt()))
+                return Optional.empty();
+            if (reference.compareAndSet(current, DONE)) {
+                unlink(username, reference);
+                return Optional.of(running.attempt());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private AtomicReference<State> reference(String username) {
+        return states.computeIfAbsent(username, k -> new AtomicReference<>(NONE));
+    }
+
+    private void unlink(String username, AtomicReference<State> reference) {
+        states.remove(username, reference);
+    }
+}
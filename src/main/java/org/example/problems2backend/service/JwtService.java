@@ -2,14 +2,17 @@ package org.example.problems2backend.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.bson.types.ObjectId;
 import org.example.problems2backend.models.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.function.Function;
@@ -29,6 +32,9 @@ public class JwtService
     @Value("${spring.application.jwt_refresh_expiration}")
     private Long jwtRefreshExpiration;
 
+    @Value("${spring.application.jwt_attempt_secret}")
+    private String jwtAttemptSecret;
+
     public String generateAccessToken(User user) {
         return Jwts.builder()
                 .subject(user.getUsername())
@@ -47,6 +53,41 @@ public class JwtService
                 .compact();
     }
 
+    // no subject, so that the authentication filter never takes it for an access token
+    public String generateAttemptToken(AttemptToken attempt) {
+        return Jwts.builder()
+                .id(Long.toHexString(attempt.id()))
+                .claim("uid", attempt.userId().toHexString())
+                .claim("qid", attempt.quizId().toHexString())
+                .claim("ver", attempt.quizVersion())
+                .claim("sta", attempt.startedAt().toEpochMilli())
+                .expiration(Date.from(attempt.deadline()))
+                .signWith(Keys.hmacShaKeyFor(jwtAttemptSecret.getBytes()))
+                .compact();
+    }
+
+    /**
+     * @throws io.jsonwebtoken.JwtException when the token is malformed, not signed by us or expired.
+     */
+    public AttemptToken parseAttemptToken(String token) {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtAttemptSecret.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        try {
+            return new AttemptToken(
+                    Long.parseUnsignedLong(claims.getId(), 16),
+                    new ObjectId(claims.get("uid", String.class)),
+                    new ObjectId(claims.get("qid", String.class)),
+                    claims.get("ver", Integer.class),
+                    Instant.ofEpochMilli(claims.get("sta", Long.class)),
+                    claims.getExpiration().toInstant());
+        } catch (RuntimeException e) {
+            throw new MalformedJwtException("not an attempt token", e);
+        }
+    }
+
 
     public String extractUsername(String token, boolean isAccessToken) {
         return extractClaim(token, Claims::getSubject, isAccessToken);
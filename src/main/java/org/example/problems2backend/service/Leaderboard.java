@@ -0,0 +1,176 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.User;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory boards of all users by rank points and by weekly points, built from the users collection at start and
+ * updated with every submission. Rebuilt every 10 minutes to pick up writes made around it.
+ * The weekly board is for the current {@link WeeklyEpoch}, it starts afresh at the first use in a new week.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class Leaderboard
+{
+    private final MongoTemplate mongoTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RankTree overall = new RankTree();
+    private RankTree weekly = new RankTree();
+    private volatile int weeklyEpoch = WeeklyEpoch.current();
+    private volatile boolean ready = false;
+
+
+    public enum Board { OVERALL, WEEKLY }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // increments made while the users are read may be missed, until the next rebuild
+    @Scheduled(initialDelay = 600_000, fixedDelay = 600_000) // every 10 minutes
+    public void rebuild() {
+        try {
+            RankTree freshOverall = new RankTree();
+            RankTree freshWeekly = new RankTree();
+            int epoch = WeeklyEpoch.current();
+            Query users = new Query();
+            users.fields().include("username", "rankPoints", "weeklyPoints", "weeklyEpoch");
+            try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+                stream.forEach(user -> {
+                    freshOverall.set(user.getUsername(), user.getId(), user.getRankPoints() != null ? user.getRankPoints() : 0);
+                    freshWeekly.set(user.getUsername(), user.getId(),
+                            WeeklyEpoch.pointsIn(epoch, user.getWeeklyPoints(), user.getWeeklyEpoch()));
+                });
+            }
+
+            lock.writeLock().lock();
+            try {
+                overall = freshOverall;
+                weekly = freshWeekly;
+                weeklyEpoch = epoch;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } catch (RuntimeException e) {
+            log.warn("could not build leaderboard, falling back to database queries", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void record(String username, ObjectId userId, int points) {
+        rollOver();
+        lock.writeLock().lock();
+        try {
+            overall.add(username, userId, points);
+            weekly.add(username, userId, points);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String username) {
+        lock.writeLock().lock();
+        try {
+            overall.remove(username);
+            weekly.remove(username);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<RankTree.Entry> top(Board board, int count) {
+        rollOver();
+        lock.readLock().lock();
+        try {
+            return tree(board).range(1, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the user's rank starting at 1, or -1 when the user is not on the board.
+     */
+    public long rankOf(Board board, String username) {
+        rollOver();
+        lock.readLock().lock();
+        try {
+            return tree(board).rankOf(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the user with up to radius users ranked right above and below, empty when the user is not on the board.
+     */
+    public List<RankTree.Entry> around(Board board, String username, int radius) {
+        rollOver();
+        lock.readLock().lock();
+        try {
+            RankTree tree = tree(board);
+            long rank = tree.rankOf(username);
+            if (rank < 0)
+                return List.of();
+            long from = Math.max(1, rank - radius);
+            return tree.range(from, (int) (rank - from) + radius + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the user's points, null when the user is not on the board.
+     */
+    public Long pointsOf(Board board, String username) {
+        rollOver();
+        lock.readLock().lock();
+        try {
+            return tree(board).pointsOf(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // the points stored for the past week now read as zero, so the weekly board does too
+    private void rollOver() {
+        int epoch = WeeklyEpoch.current();
+        if (epoch <= weeklyEpoch)
+            return;
+        lock.writeLock().lock();
+        try {
+            if (epoch > weeklyEpoch) {
+                weekly = weekly.cleared();
+                weeklyEpoch = epoch;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private RankTree tree(Board board) {
+        return board == Board.OVERALL ? overall : weekly;
+    }
+}
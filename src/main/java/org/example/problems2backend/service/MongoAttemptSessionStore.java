@@ -0,0 +1,109 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.AttemptSession;
+import org.example.problems2backend.requests.AnswerReq;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Attempts shared by all instances through the attempt_sessions collection, where a TTL index drops ended attempts.
+ * Start and stop are each one conditional write, submit is one to reserve the attempt and one to end it.
+ * An attempt is auto-submitted by the instance it was started on; if that instance is gone, the TTL index just drops it.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.application.attempt_session_store", havingValue = "mongo")
+public class MongoAttemptSessionStore
+    implements AttemptSessionStore
+{
+    private final MongoTemplate mongoTemplate;
+
+
+    public MongoAttemptSessionStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean start(AttemptSession session) {
+        // replaces an ended attempt, or inserts; a running attempt makes the insert collide on _id
+        Query endedOrMissing = new Query(Criteria.where("_id").is(session.getUsername())
+                .and("deadline").lte(session.getStartedAt()));
+        Update update = new Update()
+                .set("userId", session.getUserId())
+                .set("quizId", session.getQuizId())
+                .set("startedAt", session.getStartedAt())
+                .set("deadline", session.getDeadline())
+                .set("status", AttemptSession.Status.RUNNING)
+                .unset("savedAnswers");
+        try {
+            mongoTemplate.upsert(endedOrMissing, update, AttemptSession.class);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<AttemptSession> finish(String username, ObjectId quizId) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(running(username, quizId, Instant.now()), AttemptSession.class));
+    }
+
+    @Override
+    public Optional<AttemptSession> beginSubmit(String username, ObjectId quizId) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(running(username, quizId, Instant.now()),
+                new Update().set("status", AttemptSession.Status.SUBMITTING),
+                FindAndModifyOptions.options().returnNew(true),
+                AttemptSession.class));
+    }
+
+    @Override
+    public void completeSubmit(AttemptSession attempt) {
+        mongoTemplate.remove(submitting(attempt), AttemptSession.class);
+    }
+
+    @Override
+    public void abortSubmit(AttemptSession attempt) {
+        mongoTemplate.updateFirst(submitting(attempt), new Update().set("status", AttemptSession.Status.RUNNING), AttemptSession.class);
+    }
+
+    @Override
+    public boolean saveAnswers(String username, ObjectId quizId, List<AnswerReq> answers) {
+        return mongoTemplate.updateFirst(running(username, quizId, Instant.now()), new Update().set("savedAnswers", answers), AttemptSession.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public Optional<AttemptSession> expire(String username, Instant deadline) {
+        // the deadline identifies the attempt, a restarted one has another
+        Query query = new Query(Criteria.where("_id").is(username)
+                .and("deadline").is(deadline)
+                .and("status").is(AttemptSession.Status.RUNNING));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, AttemptSession.class));
+    }
+
+    private static Query running(String username, Instant now) {
+        return new Query(Criteria.where("_id").is(username)
+                .and("deadline").gt(now)
+                .and("status").is(AttemptSession.Status.RUNNING));
+    }
+
+    private static Query running(String username, ObjectId quizId, Instant now) {
+        return running(username, now).addCriteria(Criteria.where("quizId").is(quizId));
+    }
+
+    private static Query submitting(AttemptSession attempt) {
+        return new Query(Criteria.where("_id").is(attempt.getUsername())
+                .and("deadline").is(attempt.getDeadline())
+                .and("status").is(AttemptSession.Status.SUBMITTING));
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.problems2backend.service;
+
+import org.example.problems2backend.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursors: the sort key of the last returned item, url-safe base64 encoded. A listing that
+ * can be ordered in more than one way leads its cursors with the ordering, so that a cursor is not read in another one.
+ */
+public final class PageCursor
+{
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+    }
+
+    public static String encode(String... keyParts) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, keyParts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        String[] keyParts = split(cursor);
+        if (keyParts.length != expectedParts)
+            throw new InvalidCursorException("malformed cursor");
+        return keyParts;
+    }
+
+    /**
+     * @return the key parts following the ordering.
+     * @throws InvalidCursorException when the cursor was made for another ordering, paging has to start over.
+     */
+    public static String[] decode(String cursor, String ordering, int expectedParts) {
+        String[] keyParts = split(cursor);
+        if (!keyParts[0].equals(ordering))
+            throw new InvalidCursorException("cursor of another ordering, page again from the first page");
+        if (keyParts.length != expectedParts + 1)
+            throw new InvalidCursorException("malformed cursor");
+        return Arrays.copyOfRange(keyParts, 1, keyParts.length);
+    }
+
+    private static String[] split(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("malformed cursor");
+        }
+    }
+}
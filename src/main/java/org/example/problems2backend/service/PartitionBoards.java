@@ -0,0 +1,232 @@
+package org.example.problems2backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.PartitionPoints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Leaderboards of the points earned on part of the quizzes, one per difficulty and one per tag, kept as
+ * {@link PartitionPoints} and updated with the totals written by {@link SubmissionWriter}. Points from before the
+ * boards existed are counted once by {@link PartitionPointsBackfill}.
+ * <p>
+ * Each board keeps only its best board size users in memory, exactly the best ones, so the top of a board is served
+ * from memory. Users ranked past them are spilled: their rank is counted in the database, on the partition index.
+ * Rebuilt every 10 minutes to pick up writes made around it.
+ */
+@Slf4j
+@Component
+public class PartitionBoards
+{
+    private static final String DIFFICULTY = "difficulty:";
+    private static final String TAG = "tag:";
+
+    private final MongoTemplate mongoTemplate;
+    private final int boardSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Board> boards = new HashMap<>();
+    private volatile boolean ready = false;
+
+
+    private static final class Board
+    {
+        private final RankTree top = new RankTree();
+        private boolean complete = true; // no user is spilled
+    }
+
+    /**
+     * @param rank position on the board starting at 1, -1 when the user is not on the board.
+     */
+    public record Standing(long rank, long points) {}
+
+
+    public PartitionBoards(MongoTemplate mongoTemplate,
+                           @Value("${spring.application.partition_board_size:1000}") int boardSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * @return the partitions a quiz of the difficulty and tags counts towards.
+     */
+    public static List<String> partitionsOf(String difficulty, List<String> tags) {
+        List<String> partitions = new ArrayList<>();
+        if (difficulty != null)
+            partitions.add(difficulty(difficulty));
+        if (tags != null)
+            tags.stream().filter(Objects::nonNull).distinct().map(PartitionBoards::tag).forEach(partitions::add);
+        return partitions;
+    }
+
+    /**
+     * @return the difficulty among the partitions of a quiz, null when it has none.
+     */
+    public static String difficultyIn(List<String> partitions) {
+        for (String partition : partitions)
+            if (partition.startsWith(DIFFICULTY))
+                return partition.substring(DIFFICULTY.length());
+        return null;
+    }
+
+    public static String difficulty(String difficulty) {
+        return DIFFICULTY + difficulty;
+    }
+
+    public static String tag(String tag) {
+        return TAG + tag;
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // totals written while the boards are read may be missed, until the next rebuild
+    @Scheduled(initialDelay = 600_000, fixedDelay = 600_000) // every 10 minutes
+    public void rebuild() {
+        try {
+            Map<String, Board> fresh = new HashMap<>();
+            for (String partition : mongoTemplate.findDistinct(new Query(), "partition", PartitionPoints.class, String.class)) {
+                Query best = new Query(Criteria.where("partition").is(partition))
+                        .with(Sort.by(Sort.Order.desc("points"), Sort.Order.asc("userId")))
+                        .limit(boardSize + 1);
+                best.fields().include("userId", "username", "points");
+                List<PartitionPoints> users = mongoTemplate.find(best, PartitionPoints.class);
+                Board board = new Board();
+                board.complete = users.size() <= boardSize;
+                for (PartitionPoints user : users.subList(0, Math.min(users.size(), boardSize)))
+                    board.top.set(user.getUsername(), user.getUserId(), user.getPoints());
+                fresh.put(partition, board);
+            }
+
+            lock.writeLock().lock();
+            try {
+                boards = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } catch (RuntimeException e) {
+            log.warn("could not build partition leaderboards, falling back to database queries", e);
+        }
+    }
+
+    /**
+     * Takes the users' totals as just written.
+     */
+    public void update(Collection<PartitionPoints> written) {
+        lock.writeLock().lock();
+        try {
+            for (PartitionPoints user : written) {
+                Board board = boards.computeIfAbsent(user.getPartition(), k -> new Board());
+                RankTree top = board.top;
+                if (top.pointsOf(user.getUsername()) == null && !board.complete && !ranksAboveLast(top, user))
+                    continue; // stays spilled
+                top.set(user.getUsername(), user.getUserId(), user.getPoints());
+                if (top.size() > boardSize) {
+                    top.remove(top.range(top.size(), 1).get(0).username());
+                    board.complete = false;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<RankTree.Entry> top(String partition, int count) {
+        if (ready) {
+            lock.readLock().lock();
+            try {
+                Board board = boards.get(partition);
+                return board != null ? board.top.range(1, count) : List.of();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Query best = new Query(Criteria.where("partition").is(partition))
+                .with(Sort.by(Sort.Order.desc("points"), Sort.Order.asc("userId")))
+                .limit(count);
+        best.fields().include("username", "points");
+        List<PartitionPoints> users = mongoTemplate.find(best, PartitionPoints.class);
+        List<RankTree.Entry> entries = new ArrayList<>(users.size());
+        for (PartitionPoints user : users)
+            entries.add(new RankTree.Entry(entries.size() + 1, user.getUsername(), user.getPoints()));
+        return entries;
+    }
+
+    /**
+     * @return the user's rank and points, from memory when among the best and counted otherwise.
+     */
+    public Standing standingOf(String partition, String username, ObjectId userId) {
+        if (ready) {
+            lock.readLock().lock();
+            try {
+                Board board = boards.get(partition);
+                if (board == null)
+                    return new Standing(-1, 0);
+                Long points = board.top.pointsOf(username);
+                if (points != null)
+                    return new Standing(board.top.rankOf(username), points);
+                if (board.complete)
+                    return new Standing(-1, 0);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        PartitionPoints user = mongoTemplate.findById(PartitionPoints.idOf(partition, userId), PartitionPoints.class);
+        if (user == null)
+            return new Standing(-1, 0);
+        long above = mongoTemplate.count(new Query(new Criteria().andOperator(
+                Criteria.where("partition").is(partition),
+                new Criteria().orOperator(
+                        Criteria.where("points").gt(user.getPoints()),
+                        Criteria.where("points").is(user.getPoints()).and("userId").lt(userId)))),
+                PartitionPoints.class);
+        return new Standing(above + 1, user.getPoints());
+    }
+
+    /**
+     * @return the user with up to radius users ranked right above and below, empty when the user is not among the best.
+     */
+    public List<RankTree.Entry> around(String partition, String username, int radius) {
+        if (!ready)
+            return List.of();
+        lock.readLock().lock();
+        try {
+            Board board = boards.get(partition);
+            long rank = board != null ? board.top.rankOf(username) : -1;
+            if (rank < 0)
+                return List.of();
+            long from = Math.max(1, rank - radius);
+            return board.top.range(from, (int) (rank - from) + radius + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // a user beating the last one kept is among the best, as no spilled user beats the last one kept
+    private static boolean ranksAboveLast(RankTree top, PartitionPoints user) {
+        if (top.size() == 0)
+            return false;
+        RankTree.Entry last = top.range(top.size(), 1).get(0);
+        return user.getPoints() > last.points()
+                || user.getPoints() == last.points() && user.getUserId().compareTo(top.userIdOf(last.username())) < 0;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.problems2backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.PartitionPoints;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Counts the points of every user on each difficulty and tag leaderboard from their quiz results, once at the first
+ * start, so that the boards rank the play from before they existed. Results count towards the partitions of their
+ * quiz as it is now; those of deleted quizzes count towards none.
+ * <p>
+ * Runs before the submission writer is created, as the writer depends on it, so that no total it increments is
+ * overwritten.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionPointsBackfill
+{
+    static final String BACKFILL = "partition_points_backfill";
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRepository migrationRepository;
+    private final QuizRepository quizRepository;
+
+
+    @PostConstruct
+    public void warmUp() {
+        try {
+            if (!migrationRepository.existsById(BACKFILL)) {
+                backfill();
+                migrationRepository.save(Migration.builder().id(BACKFILL).doneAt(LocalDateTime.now()).build());
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not backfill partition points", e);
+        }
+    }
+
+    // a single pass over the results
+    void backfill() {
+        Map<ObjectId, List<String>> partitions = new HashMap<>();
+        for (QuizSummaryProjection quiz : quizRepository.findAllProjectedBy())
+            partitions.put(quiz.getId(), PartitionBoards.partitionsOf(quiz.getDifficulty(), quiz.getTags()));
+
+        Map<String, PartitionPoints> points = new LinkedHashMap<>();
+        Query results = new Query();
+        results.fields().include("userId", "quizId", "obtainedPoints");
+        try (Stream<QuizResult> stream = mongoTemplate.stream(results, QuizResult.class)) {
+            stream.forEach(result -> {
+                if (result.getUserId() == null || result.getObtainedPoints() == null)
+                    return;
+                for (String partition : partitions.getOrDefault(result.getQuizId(), List.of())) {
+                    PartitionPoints user = points.computeIfAbsent(PartitionPoints.idOf(partition, result.getUserId()),
+                            id -> PartitionPoints.builder().id(id).partition(partition).userId(result.getUserId()).build());
+                    user.setPoints(user.getPoints() + result.getObtainedPoints());
+                }
+            });
+        }
+        if (points.isEmpty())
+            return;
+
+        Map<ObjectId, String> usernames = new HashMap<>();
+        Query users = new Query();
+        users.fields().include("username");
+        try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+            stream.forEach(user -> usernames.put(user.getId(), user.getUsername()));
+        }
+
+        BulkOperations replace = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PartitionPoints.class);
+        int replaced = 0;
+        for (PartitionPoints user : points.values()) {
+            user.setUsername(usernames.get(user.getUserId()));
+            if (user.getUsername() == null)
+                continue; // a deleted user
+            replace.replaceOne(new Query(Criteria.where("_id").is(user.getId())), user, FindAndReplaceOptions.options().upsert());
+            replaced++;
+        }
+        if (replaced > 0)
+            replace.execute();
+        log.info("backfilled {} partition points", replaced);
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizAggregate;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Recounts the running totals and score histograms of quiz results, which the submission writer only ever
+ * increments: once at the first start, and every night to correct drift such as a batch written twice.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuizAggregates
+{
+    static final String BACKFILL = "quiz_aggregates_backfill";
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRepository migrationRepository;
+
+
+    // gated on a marker rather than on the aggregates being empty, which a submission written first would defeat
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (!migrationRepository.existsById(BACKFILL)) {
+                recount();
+                migrationRepository.save(Migration.builder().id(BACKFILL).doneAt(LocalDateTime.now()).build());
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not backfill quiz aggregates", e);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * *") // every night
+    public void rebuild() {
+        try {
+            recount();
+        } catch (RuntimeException e) {
+            log.warn("could not rebuild quiz aggregates", e);
+        }
+    }
+
+    // a single pass over the results; increments written while it runs may be overwritten, until the next rebuild
+    void recount() {
+        Map<ObjectId, QuizAggregate> aggregates = new HashMap<>();
+        Query results = new Query();
+        results.fields().include("quizId", "obtainedPoints", "timeTaken");
+        try (Stream<QuizResult> stream = mongoTemplate.stream(results, QuizResult.class)) {
+            stream.forEach(result -> add(aggregates.computeIfAbsent(result.getQuizId(),
+                    quizId -> QuizAggregate.builder().quizId(quizId).build()), result));
+        }
+        if (aggregates.isEmpty())
+            return;
+
+        BulkOperations replace = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizAggregate.class);
+        aggregates.values().forEach(aggregate -> replace.replaceOne(new Query(Criteria.where("_id").is(aggregate.getQuizId())),
+                aggregate, FindAndReplaceOptions.options().upsert()));
+        replace.execute();
+    }
+
+    private static void add(QuizAggregate aggregate, QuizResult result) {
+        int points = result.getObtainedPoints() != null ? result.getObtainedPoints() : 0;
+        int timeTaken = result.getTimeTaken() != null ? result.getTimeTaken() : 0;
+        aggregate.setAttempts(aggregate.getAttempts() + 1);
+        aggregate.setTotalObtainedPoints(aggregate.getTotalObtainedPoints() + points);
+        aggregate.setTotalTimeTaken(aggregate.getTotalTimeTaken() + timeTaken);
+        aggregate.getObtainedPointsHistogram().merge(ScoreHistogram.key(points), 1L, Long::sum);
+        aggregate.getTimeTakenHistogram().merge(ScoreHistogram.key(timeTaken), 1L, Long::sum);
+    }
+}
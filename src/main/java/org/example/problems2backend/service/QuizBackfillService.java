@@ -0,0 +1,72 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.DataTypeOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Fills the denormalized quiz fields on documents written before they existed.
+ * Works in small batches so it can run against the live collection while the application serves requests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuizBackfillService
+{
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    // after the indexes are created and before the in-memory views are built
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void backfill() {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("questionCount").toValue(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("questions").then(List.of())))
+                // only a string difficulty is normalized, a missing or null one is left as it is
+                .set("difficulty").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf(DataTypeOperators.Type.typeOf("difficulty")).equalToValue("string"))
+                        .then(StringOperators.ToUpper.upperValueOf(StringOperators.valueOf("difficulty").trim()))
+                        .otherwiseValueOf("difficulty"));
+
+        long updated = 0;
+        try {
+            while (true) {
+                Query pending = new Query(Criteria.where("questionCount").exists(false)).limit(BATCH_SIZE);
+                pending.fields().include("_id");
+                List<ObjectId> ids = mongoTemplate.find(pending, Document.class, "quizzes").stream()
+                        .map(document -> document.getObjectId("_id"))
+                        .toList();
+                if (ids.isEmpty())
+                    break;
+
+                updated += mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)), update, Quiz.class)
+                        .getModifiedCount();
+            }
+        } catch (RuntimeException e) {
+            log.warn("quiz backfill stopped after {} quizzes", updated, e);
+            return;
+        }
+        if (updated > 0)
+            log.info("backfilled questionCount and difficulty on {} quizzes", updated);
+    }
+}
@@ -0,0 +1,399 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidCursorException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizRes;
+import org.example.problems2backend.responses.QuizzesFacetsRes;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the quiz catalog (name, description and tags).
+ * Search results are ranked with BM25 where name and tag matches weigh more than description matches.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuizCatalogIndex
+{
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // field weights
+    private static final float NAME_WEIGHT = 3f;
+    private static final float TAG_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // searchAfter cursors are (score, id), the database fallback's are not
+    private static final String CURSOR_ORDERING = "relevance";
+
+    private final QuizRepository quizRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private List<Consumer<State>> changedDuringRebuild; // null when no rebuild is running
+    private volatile boolean ready = false;
+
+
+    /**
+     * @param nextCursor cursor of the page following this one, null when this is the last page or offset paging was used.
+     */
+    public record SearchResult(List<QuizRes> quizzes, int total, String nextCursor, QuizzesFacetsRes facets) {}
+
+    private record Ranking(List<Hit> hits, QuizzesFacetsRes facets) {}
+
+    private record Hit(Entry entry, double score) {}
+
+    // highest relevance first, ties broken by id so that the order is stable across pages
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(hit -> hit.entry().id());
+
+    private record Entry(ObjectId id, QuizRes quiz, Map<String, Float> termFrequencies, float length) {}
+
+    private static class State
+    {
+        private final List<Entry> entries = new ArrayList<>(); // slot -> entry, null for freed slots
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private final Map<ObjectId, Integer> slotsById = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final TreeMap<String, BitSet> postings = new TreeMap<>(); // sorted so that prefixes are a range
+        private final Map<String, BitSet> difficulties = new HashMap<>();
+        private final Map<String, BitSet> tags = new HashMap<>();
+        private double totalLength = 0;
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    // picks up quizzes written around the mapping layer (e.g. seeding scripts)
+    @Scheduled(initialDelay = 600_000, fixedDelay = 600_000) // every 10 minutes
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            State fresh = new State();
+            for (QuizSummaryProjection quiz : quizRepository.findAllProjectedBy())
+                add(fresh, quiz.getId(), QuizRes.of(quiz));
+
+            lock.writeLock().lock();
+            try {
+                // changes made while the quizzes were read may be missing from them, replaying them again is harmless
+                changedDuringRebuild.forEach(change -> change.accept(fresh));
+                state = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } catch (RuntimeException e) {
+            log.warn("could not build quiz catalog index, falling back to database search", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void upsert(Quiz quiz) {
+        if (quiz.getId() == null)
+            return;
+        QuizRes entry = QuizRes.of(quiz);
+        apply(target -> {
+            remove(target, quiz.getId());
+            add(target, quiz.getId(), entry);
+        });
+    }
+
+    public void remove(ObjectId quizId) {
+        apply(target -> remove(target, quizId));
+    }
+
+    // applies the change to the current state, and to the one being rebuilt if any
+    private void apply(Consumer<State> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (changedDuringRebuild != null)
+                changedDuringRebuild.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return the difficulty of each of the quizzes in the index that has one, the others are left out.
+     */
+    public Map<ObjectId, String> difficultiesOf(Collection<ObjectId> quizIds) {
+        Map<ObjectId, String> difficulties = new HashMap<>();
+        if (!ready)
+            return difficulties;
+        lock.readLock().lock();
+        try {
+            for (ObjectId quizId : quizIds) {
+                Integer slot = state.slotsById.get(quizId);
+                String difficulty = slot != null ? state.entries.get(slot).quiz().getDifficulty() : null;
+                if (difficulty != null)
+                    difficulties.put(quizId, difficulty);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return difficulties;
+    }
+
+    /**
+     * @param offset number of matching quizzes to skip.
+     * @param limit maximum number of quizzes to return.
+     * @param withFacets whether to count tags, difficulties and question count buckets over all matches.
+     * @return the requested slice of matching quizzes together with the total number of matches.
+     */
+    public SearchResult search(String searchTerm, String difficulty, List<String> tags,
+                               Integer minQuestions, Integer maxQuestions, int offset, int limit, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            Ranking ranking = rank(state, searchTerm, difficulty, tags, minQuestions, maxQuestions, withFacets);
+            List<Hit> hits = ranking.hits();
+            int from = Math.min(Math.max(offset, 0), hits.size());
+            int to = Math.min(from + limit, hits.size());
+            return new SearchResult(toQuizzes(hits.subList(from, to)), hits.size(), null, ranking.facets());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset variant of {@link #search}: returns the matches ranked after the given cursor.
+     * @param cursor cursor returned with the previous page, null or blank for the first page.
+     */
+    public SearchResult searchAfter(String searchTerm, String difficulty, List<String> tags,
+                                    Integer minQuestions, Integer maxQuestions, String cursor, int limit, boolean withFacets) {
+        Hit after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = PageCursor.decode(cursor, CURSOR_ORDERING, 2);
+            try {
+                after = new Hit(new Entry(new ObjectId(key[1]), null, Map.of(), 0), Double.parseDouble(key[0]));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("malformed cursor");
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Ranking ranking = rank(state, searchTerm, difficulty, tags, minQuestions, maxQuestions, withFacets);
+            List<Hit> hits = ranking.hits();
+            int from = 0;
+            if (after != null) {
+                // first hit ranked strictly after the cursor
+                int position = Collections.binarySearch(hits, after, HIT_ORDER);
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+            int to = Math.min(from + limit, hits.size());
+            String nextCursor = null;
+            if (to < hits.size() && to > from) {
+                Hit last = hits.get(to - 1);
+                nextCursor = PageCursor.encode(CURSOR_ORDERING, Double.toString(last.score()), last.entry().id().toHexString());
+            }
+            return new SearchResult(toQuizzes(hits.subList(from, to)), hits.size(), nextCursor, ranking.facets());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Ranking rank(State s, String searchTerm, String difficulty, List<String> tags,
+                         Integer minQuestions, Integer maxQuestions, boolean withFacets) {
+        List<String> tokens = tokenize(searchTerm);
+        BitSet candidates = (BitSet) s.live.clone();
+
+        if (difficulty != null && !difficulty.isBlank())
+            candidates.and(s.difficulties.getOrDefault(normalizeDifficulty(difficulty), new BitSet()));
+
+        if (tags != null && !tags.isEmpty()) {
+            BitSet anyTag = new BitSet();
+            for (String tag : tags) {
+                BitSet tagged = s.tags.get(tag);
+                if (tagged != null)
+                    anyTag.or(tagged);
+            }
+            candidates.and(anyTag);
+        }
+
+        // every token has to match, as a prefix of some indexed term
+        List<SortedMap<String, BitSet>> expansions = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            SortedMap<String, BitSet> expansion = s.postings.subMap(token, token + Character.MAX_VALUE);
+            BitSet matching = new BitSet();
+            for (BitSet docs : expansion.values())
+                matching.or(docs);
+            candidates.and(matching);
+            expansions.add(expansion);
+        }
+
+        int documents = s.live.cardinality();
+        double averageLength = documents == 0 ? 0 : s.totalLength / documents;
+
+        Map<String, Long> tagCounts = new HashMap<>();
+        Map<String, Long> difficultyCounts = new HashMap<>();
+        Map<String, Long> questionCounts = new LinkedHashMap<>();
+        if (withFacets) // every bucket is reported, in order
+            for (int boundary : QuizzesFacetsRes.QUESTION_COUNT_BOUNDARIES)
+                questionCounts.put(QuizzesFacetsRes.questionCountBucket(boundary), 0L);
+
+        List<Hit> hits = new ArrayList<>();
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            Entry entry = s.entries.get(slot);
+            int questions = entry.quiz().getNumberOfQuestions();
+            if (minQuestions != null && questions < minQuestions)
+                continue;
+            if (maxQuestions != null && questions > maxQuestions)
+                continue;
+            hits.add(new Hit(entry, score(entry, expansions, documents, averageLength)));
+
+            // facets are counted in the same pass over the matches
+            if (withFacets) {
+                if (entry.quiz().getTags() != null)
+                    for (String tag : entry.quiz().getTags())
+                        tagCounts.merge(tag, 1L, Long::sum);
+                if (entry.quiz().getDifficulty() != null)
+                    difficultyCounts.merge(normalizeDifficulty(entry.quiz().getDifficulty()), 1L, Long::sum);
+                questionCounts.merge(QuizzesFacetsRes.questionCountBucket(questions), 1L, Long::sum);
+            }
+        }
+        hits.sort(HIT_ORDER);
+
+        QuizzesFacetsRes facets = !withFacets ? null : QuizzesFacetsRes.builder()
+                .tags(tagCounts)
+                .difficulties(difficultyCounts)
+                .numberOfQuestions(questionCounts)
+                .build();
+        return new Ranking(hits, facets);
+    }
+
+    private static List<QuizRes> toQuizzes(List<Hit> hits) {
+        List<QuizRes> quizzes = new ArrayList<>(hits.size());
+        for (Hit hit : hits)
+            quizzes.add(hit.entry().quiz());
+        return quizzes;
+    }
+
+    private double score(Entry entry, List<SortedMap<String, BitSet>> expansions, int documents, double averageLength) {
+        double score = 0;
+        double norm = K1 * (1 - B + B * (averageLength == 0 ? 1 : entry.length() / averageLength));
+        for (SortedMap<String, BitSet> expansion : expansions) {
+            for (Map.Entry<String, BitSet> term : expansion.entrySet()) {
+                Float tf = entry.termFrequencies().get(term.getKey());
+                if (tf == null)
+                    continue;
+                int df = term.getValue().cardinality();
+                double idf = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+                score += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        return score;
+    }
+
+
+    private static void add(State s, ObjectId id, QuizRes quiz) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        length += countTerms(termFrequencies, quiz.getName(), NAME_WEIGHT);
+        length += countTerms(termFrequencies, quiz.getDescription(), DESCRIPTION_WEIGHT);
+        if (quiz.getTags() != null)
+            for (String tag : quiz.getTags())
+                length += countTerms(termFrequencies, tag, TAG_WEIGHT);
+
+        int slot = s.freeSlots.isEmpty() ? s.entries.size() : s.freeSlots.pop();
+        Entry entry = new Entry(id, quiz, termFrequencies, length);
+        if (slot == s.entries.size())
+            s.entries.add(entry);
+        else
+            s.entries.set(slot, entry);
+
+        s.slotsById.put(id, slot);
+        s.live.set(slot);
+        s.totalLength += length;
+        for (String term : termFrequencies.keySet())
+            s.postings.computeIfAbsent(term, k -> new BitSet()).set(slot);
+        if (quiz.getDifficulty() != null)
+            s.difficulties.computeIfAbsent(normalizeDifficulty(quiz.getDifficulty()), k -> new BitSet()).set(slot);
+        if (quiz.getTags() != null)
+            for (String tag : quiz.getTags())
+                s.tags.computeIfAbsent(tag, k -> new BitSet()).set(slot);
+    }
+
+    private static void remove(State s, ObjectId quizId) {
+        Integer slot = s.slotsById.remove(quizId);
+        if (slot == null)
+            return;
+        Entry entry = s.entries.set(slot, null);
+        s.live.clear(slot);
+        s.totalLength -= entry.length();
+        for (String term : entry.termFrequencies().keySet())
+            clear(s.postings, term, slot);
+        if (entry.quiz().getDifficulty() != null)
+            clear(s.difficulties, normalizeDifficulty(entry.quiz().getDifficulty()), slot);
+        if (entry.quiz().getTags() != null)
+            for (String tag : entry.quiz().getTags())
+                clear(s.tags, tag, slot);
+        s.freeSlots.push(slot);
+    }
+
+    private static void clear(Map<String, BitSet> bitSets, String key, int slot) {
+        BitSet bitSet = bitSets.get(key);
+        if (bitSet == null)
+            return;
+        bitSet.clear(slot);
+        if (bitSet.isEmpty())
+            bitSets.remove(key);
+    }
+
+    private static float countTerms(Map<String, Float> termFrequencies, String text, float weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens)
+            termFrequencies.merge(token, weight, Float::sum);
+        return tokens.size() * weight;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            if (!token.isEmpty())
+                tokens.add(token);
+        return tokens;
+    }
+
+    static String normalizeDifficulty(String difficulty) {
+        return difficulty.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.problems2backend.service;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-memory quiz views in sync with quiz writes made through the mapping layer.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuizChangeListener
+    extends AbstractMongoEventListener<Quiz>
+{
+    private final QuizCatalogIndex quizCatalogIndex;
+    private final QuizSuggestIndex quizSuggestIndex;
+    private final QuizStatsSnapshot quizStatsSnapshot;
+    private final CompiledQuizCache compiledQuizCache;
+
+    @Override
+    public void onAfterSave(@NonNull AfterSaveEvent<Quiz> event) {
+        quizCatalogIndex.upsert(event.getSource());
+        quizSuggestIndex.upsert(event.getSource());
+        quizStatsSnapshot.upsert(event.getSource());
+        if (event.getSource().getId() != null)
+            compiledQuizCache.invalidate(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(@NonNull AfterDeleteEvent<Quiz> event) {
+        Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId quizId) {
+            quizCatalogIndex.remove(quizId);
+            quizSuggestIndex.remove(quizId);
+            quizStatsSnapshot.remove(quizId);
+            compiledQuizCache.invalidate(quizId);
+        } else { // bulk delete, the removed ids are unknown
+            quizCatalogIndex.rebuild();
+            quizSuggestIndex.rebuild();
+            quizStatsSnapshot.reconcile();
+            compiledQuizCache.invalidateAll();
+        }
+    }
+}
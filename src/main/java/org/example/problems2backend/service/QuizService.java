@@ -3,101 +3,142 @@ package org.example.problems2backend.service;
 import lombok.AllArgsConstructor;
 import org.bson.types.ObjectId;
 import org.example.problems2backend.exceptions.*;
+import org.example.problems2backend.models.AttemptSession;
+import org.example.problems2backend.models.QuizAggregate;
 import org.example.problems2backend.models.QuizResult;
 import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.QuizAggregateRepository;
 import org.example.problems2backend.repositories.QuizRepository;
 import org.example.problems2backend.repositories.QuizResultRepository;
 import org.example.problems2backend.repositories.UserRepository;
 import org.example.problems2backend.repositories.projections.DifficultyCountProjection;
-import org.example.problems2backend.repositories.projections.QuizAverageResultProjection;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
 import org.example.problems2backend.repositories.projections.TagCountProjection;
 import org.example.problems2backend.requests.AnswerReq;
 import org.example.problems2backend.requests.SubmitAnswersReq;
 import org.example.problems2backend.responses.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.example.problems2backend.models.Quiz;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class QuizService {
+    // the database fallback of getQuizzesAfter pages by _id, the index by relevance
+    private static final String FALLBACK_CURSOR_ORDERING = "id";
+
     private final QuizRepository quizRepository;
     private final QuizResultRepository quizResultRepository;
     private final UserRepository userRepository;
-    private final ConcurrentHashMap<String, LocalDateTime> userQuizEndsIn = new ConcurrentHashMap<>();
-    private final MongoTemplate mongoTemplate;
-
-
-    @Scheduled(cron = "0 0 0 * * MON") //
-    // every Monday at midnight
-    public void clearWeeklyPoints() {
-        mongoTemplate.updateMulti(
-                new Query(), // Creates an empty query to match all documents
-                new Update().set("weeklyPoints", 0), // Sets the weeklyPoints field to 0
-                User.class
-        );
-    }
+    private final QuizCatalogIndex quizCatalogIndex;
+    private final QuizSuggestIndex quizSuggestIndex;
+    private final QuizStatsSnapshot quizStatsSnapshot;
+    private final CompiledQuizCache compiledQuizCache;
+    private final AttemptSessionStore attemptSessionStore;
+    private final AttemptExpiry attemptExpiry;
+    private final AttemptTokens attemptTokens;
+    private final SubmissionWriter submissionWriter;
+    private final QuizAggregateRepository quizAggregateRepository;
+    private final Leaderboard leaderboard;
 
-    @Scheduled(fixedRate = 300_000) // once 5 minutes
-    public void clearEndedQuizzes() {
-        LocalDateTime now = LocalDateTime.now();
-        for (String username : userQuizEndsIn.keySet())
-            userQuizEndsIn.computeIfPresent(username, (k, v) -> v.isBefore(now) ? null : v);
-    }
 
+    /**
+     * @param questionsJson the questions without their answers, as ready to send JSON.
+     * @param attemptToken the signed attempt, null unless attempts are carried as tokens.
+     */
+    public record StartedQuiz(byte[] questionsJson, String attemptToken) {}
 
 
     public QuizzesRes getQuizzes(int page, int pageSize, String searchTerm, String difficulty,
-          List<String> tags, Integer withMinimumNumberOfQuestions, Integer withMaximumNumberOfQuestions) {
-            // Set default values for optional parameters
-        String searchRegex = searchTerm != null ? searchTerm : "";
-        String difficultyRegex = difficulty != null ? difficulty : "";
-        List<String> tagsList = tags != null ? tags : new ArrayList<>();
-        int minQuestions = withMinimumNumberOfQuestions != null ? withMinimumNumberOfQuestions : 0;
-        int maxQuestions = withMaximumNumberOfQuestions != null ? withMaximumNumberOfQuestions : Integer.MAX_VALUE;
-        boolean ignoreTags = tags == null || tags.isEmpty();
-
-        // Create pageable object
-        Pageable pageable = PageRequest.of(page - 1, pageSize);
-        // Get the page of quizzes
-        Page<Quiz> quizPage = quizRepository.findQuizzesWithFilters(
-                                                searchRegex,
-                                                difficultyRegex,
-                                                tagsList,
-                                                minQuestions,
-                                                maxQuestions,
-                                                ignoreTags,
-                                                pageable
+          List<String> tags, Integer withMinimumNumberOfQuestions, Integer withMaximumNumberOfQuestions, boolean withFacets) {
+        // Answer from the in-memory index once it is built
+        if (quizCatalogIndex.isReady()) {
+            QuizCatalogIndex.SearchResult result = quizCatalogIndex.search(searchTerm, difficulty, tags,
+                    withMinimumNumberOfQuestions, withMaximumNumberOfQuestions, (page - 1) * pageSize, pageSize, withFacets);
+            return QuizzesRes.builder()
+                .quizzes(result.quizzes())
+                .currentPage(page)
+                .totalPages((result.total() + pageSize - 1) / pageSize)
+                .facets(result.facets())
+            .build();
+        }
+
+        // Get the page of quizzes, absent filters are left out of the query
+        Page<QuizSummaryProjection> quizPage = quizRepository.findQuizzesWithFilters(
+                                                searchTerm,
+                                                difficulty,
+                                                tags,
+                                                withMinimumNumberOfQuestions,
+                                                withMaximumNumberOfQuestions,
+                                                PageRequest.of(page - 1, pageSize)
                                     );
         // Convert Quiz entities to QuizRes DTOs
         List<QuizRes> quizResList = quizPage.getContent().stream()
-            .map(quiz -> QuizRes.builder()
-            .id(quiz.getId().toString())
-            .name(quiz.getName())
-            .description(quiz.getDescription())
-            .difficulty(quiz.getDifficulty())
-            .tags(quiz.getTags())
-            .numberOfQuestions(quiz.getQuestions().size())
-            .timeLimit(quiz.getTimeLimit())
-        .build())
+            .map(QuizRes::of)
         .collect(Collectors.toList());
         // Build and return the response
         return QuizzesRes.builder()
             .quizzes(quizResList)
             .currentPage(page)
             .totalPages(quizPage.getTotalPages())
+            .facets(withFacets ? quizRepository.countFacetsWithFilters(searchTerm, difficulty, tags,
+                    withMinimumNumberOfQuestions, withMaximumNumberOfQuestions) : null)
+        .build();
+    }
+
+    /**
+     * keyset paging over the catalog: one bounded query per page, no skip and no count.
+     * @param cursor cursor returned with the previous page, empty for the first page.
+     * @return the page and the cursor of the next one; the total is only reported when the index answers.
+     */
+    public QuizzesRes getQuizzesAfter(String cursor, int pageSize, String searchTerm, String difficulty,
+          List<String> tags, Integer withMinimumNumberOfQuestions, Integer withMaximumNumberOfQuestions, boolean withFacets) {
+        if (quizCatalogIndex.isReady()) {
+            QuizCatalogIndex.SearchResult result = quizCatalogIndex.searchAfter(searchTerm, difficulty, tags,
+                    withMinimumNumberOfQuestions, withMaximumNumberOfQuestions, cursor, pageSize, withFacets);
+            return QuizzesRes.builder()
+                .quizzes(result.quizzes())
+                .totalPages((result.total() + pageSize - 1) / pageSize)
+                .nextCursor(result.nextCursor())
+                .facets(result.facets())
+            .build();
+        }
+
+        // database fallback pages by _id, relevance is not available there
+        ObjectId after = new ObjectId(new byte[12]);
+        if (!cursor.isBlank()) {
+            try {
+                after = new ObjectId(PageCursor.decode(cursor, FALLBACK_CURSOR_ORDERING, 1)[0]);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("malformed cursor");
+            }
+        }
+
+        List<QuizSummaryProjection> quizzes = quizRepository.findQuizzesWithFiltersAfter(searchTerm, difficulty, tags,
+                withMinimumNumberOfQuestions, withMaximumNumberOfQuestions, after, pageSize + 1);
+
+        // the extra quiz only tells whether there is a next page
+        String nextCursor = null;
+        if (quizzes.size() > pageSize) {
+            quizzes = quizzes.subList(0, pageSize);
+            nextCursor = PageCursor.encode(FALLBACK_CURSOR_ORDERING, quizzes.get(pageSize - 1).getId().toHexString());
+        }
+
+        return QuizzesRes.builder()
+            .quizzes(quizzes.stream().map(QuizRes::of).toList())
+            .nextCursor(nextCursor)
+            .facets(withFacets ? quizRepository.countFacetsWithFilters(searchTerm, difficulty, tags,
+                    withMinimumNumberOfQuestions, withMaximumNumberOfQuestions) : null)
         .build();
     }
 
@@ -107,6 +148,10 @@ public class QuizService {
      * @return quiz stats.
      */
     public QuizzesStatsRes getQuizzesStats() {
+        QuizzesStatsRes snapshot = quizStatsSnapshot.get();
+        if (snapshot != null)
+            return snapshot;
+
         // Count total quizzes
         long totalQuizzes = quizRepository.countTotalQuizzes();
 
@@ -133,6 +178,17 @@ public class QuizService {
     }
 
 
+    /**
+     * autocomplete for the catalog search box, answered from memory.
+     * @return the most popular quiz names and tags matching the prefix.
+     */
+    public SuggestionsRes suggest(String prefix, int limit) {
+        return SuggestionsRes.builder()
+                .suggestions(quizSuggestIndex.suggest(prefix, Math.max(0, Math.min(limit, QuizSuggestIndex.MAX_SUGGESTIONS))))
+                .build();
+    }
+
+
     public QuizDetailsRes getQuizDetails(String quizId) {
         // Fetch the quiz from the repository
         Quiz quiz = quizRepository.findQuizById(quizId).orElseThrow(() -> new QuizNotFoundException("quiz not found"));
@@ -144,7 +200,7 @@ public class QuizService {
                 .description(quiz.getDescription())
                 .difficulty(quiz.getDifficulty())
                 .tags(quiz.getTags())
-                .numberOfQuestions(quiz.getQuestions() != null ? quiz.getQuestions().size() : 0)
+                .numberOfQuestions(quiz.getQuestionCount() != null ? quiz.getQuestionCount() : 0)
                 .timeLimit(quiz.getTimeLimit())
                 .build();
 
@@ -160,187 +216,191 @@ public class QuizService {
 
 
 
-    public StartQuizRes startQuiz(String quizId, User user) {
-        if (userQuizEndsIn.containsKey(user.getUsername()) &&
-                userQuizEndsIn.getOrDefault(user.getUsername(), LocalDateTime.MIN).isAfter(LocalDateTime.now())) {
-            throw new InvalidQuizStateException("can't start quiz, please stop or submit previous quiz");
-        }
-
-        Quiz quiz = quizRepository.findById(quizId).orElseThrow(() -> new QuizNotFoundException("quiz not found"));
-
-        userQuizEndsIn.put(user.getUsername(), LocalDateTime.now().plusMinutes(quiz.getTimeLimit()));
-
-        List<QuestionRes> questions = quiz.getQuestions().stream()
-                .map(this::sanitizeQuestion)
-                .toList();
+    public StartedQuiz startQuiz(String quizId, User user) {
+        CompiledQuizCache.CompiledQuiz quiz = compiledQuizCache.get(quizId);
+        if (attemptTokens.isEnabled())
+            return new StartedQuiz(quiz.questionsJson(), attemptTokens.issue(quiz, user, Instant.now()));
 
-        return StartQuizRes.builder()
-                .questionsWithoutCorrectAnswers(questions)
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS); // the precision mongo keeps
+        AttemptSession attempt = AttemptSession.builder()
+                .username(user.getUsername())
+                .userId(user.getId())
+                .quizId(quiz.id())
+                .startedAt(now)
+                .deadline(now.plus(Duration.ofMinutes(quiz.timeLimit())))
                 .build();
-    }
-
-
-    private QuestionRes sanitizeQuestion(Quiz.Question question) {
-        QuestionRes sanitizedQuestion = QuestionRes.builder().build();
-        sanitizedQuestion.setId(question.getId().toString());
-
-        // Sanitize the content based on its type
-        if (question.getContent() instanceof Quiz.Question.MultipleChoice) {
-            sanitizedQuestion.setContent(sanitizeMultipleChoice(question.getContent()));
-        } else if (question.getContent() instanceof Quiz.Question.FillInTheBlank) {
-            sanitizedQuestion.setContent(sanitizeFillInTheBlank(question.getContent()));
-        } else if (question.getContent() instanceof Quiz.Question.MultipleSelect) {
-            sanitizedQuestion.setContent(sanitizeMultipleSelect(question.getContent()));
-        }
+        if (!attemptSessionStore.start(attempt))
+            throw new InvalidQuizStateException("can't start quiz, please stop or submit previous quiz");
+        attemptExpiry.schedule(attempt);
 
-        return sanitizedQuestion;
-    }
-    private ContentRes sanitizeMultipleChoice(Quiz.Question.Content multipleChoice) {
-        return ContentRes.builder()
-                .id(multipleChoice.getId().toString())
-                .type("MULTIPLE_CHOICE")
-                .question(multipleChoice.getQuestion())
-                .options(multipleChoice.getOptions())
-                .build();
-    }
-    private ContentRes sanitizeFillInTheBlank(Quiz.Question.Content fillInTheBlank) {
-        return ContentRes.builder()
-                .id(fillInTheBlank.getId().toString())
-                .type("FILL_IN_THE_BLANK")
-                .question(fillInTheBlank.getQuestion())
-                .build();
-    }
-    private ContentRes sanitizeMultipleSelect(Quiz.Question.Content multipleSelect) {
-        return ContentRes.builder()
-                .id(multipleSelect.getId().toString())
-                .type("MULTIPLE_SELECT")
-                .question(multipleSelect.getQuestion())
-                .options(multipleSelect.getOptions())
-                .build();
+        return new StartedQuiz(quiz.questionsJson(), null);
     }
 
 
-    public void stopQuiz(String quizId, User user)
+    /**
+     * @param attemptToken the token given at start, only looked at when attempts are carried as tokens.
+     */
+    public void stopQuiz(String quizId, User user, String attemptToken)
     {
-        if (!quizRepository.existsById(quizId))
-            throw new QuizNotFoundException("quiz not found to stop");
-        if (!userQuizEndsIn.containsKey(user.getUsername()) || userQuizEndsIn.getOrDefault(user.getUsername(), LocalDateTime.MIN).isBefore(LocalDateTime.now()))
+        CompiledQuizCache.CompiledQuiz quiz = compiledQuizCache.get(quizId);
+        if (attemptTokens.isEnabled()) {
+            attemptTokens.redeem(attemptToken, quiz, user);
+            return;
+        }
+        if (attemptSessionStore.finish(user.getUsername(), quiz.id()).isEmpty())
         {
-            throw new InvalidQuizStateException("can't stop quiz, it's not started at all or ended already");
+            throw new InvalidQuizStateException("can't stop quiz, it's not started at all, ended already or another quiz is running");
         }
-        userQuizEndsIn.remove(user.getUsername());
+        attemptExpiry.cancel(user.getUsername());
+    }
+
 
+    /**
+     * keeps the answers given so far, they are graded if the attempt runs out of time with auto-submit on.
+     */
+    public void saveAnswers(String quizId, SubmitAnswersReq saveReq, User user) {
+        if (attemptTokens.isEnabled())
+            throw new InvalidQuizStateException("can't save answers, attempts are not kept by the server");
+        CompiledQuizCache.CompiledQuiz quiz = compiledQuizCache.get(quizId);
+        quiz.answerKey().gradeAnswered(saveReq.getAnswers()); // rejects answers to unknown questions
+
+        List<AnswerReq> answers = saveReq.getAnswers() != null ? saveReq.getAnswers() : List.of();
+        if (!attemptSessionStore.saveAnswers(user.getUsername(), quiz.id(), answers))
+            throw new InvalidQuizStateException("can't save answers, quiz is not started or ended already");
     }
 
 
+    /**
+     * @param attemptToken the token given at start, only looked at when attempts are carried as tokens.
+     */
+    public QuizResultRes submitAnswer(String quizId, SubmitAnswersReq submitReq, User user, String attemptToken) {
+        Instant submittedAt = Instant.now();
+
+        CompiledQuizCache.CompiledQuiz quiz = compiledQuizCache.get(quizId);
 
+        // answers may come in any order, results are kept in question order
+        boolean[] correct = quiz.answerKey().grade(submitReq.getAnswers());
 
+        QuizResult quizResult = attemptTokens.isEnabled()
+                ? submitTokenAttempt(quiz, user, attemptToken, correct, submittedAt)
+                : submitSessionAttempt(quiz, user, correct, submittedAt);
 
-    public QuizResultRes submitAnswer(String quizId, SubmitAnswersReq submitReq, User user) {
-        LocalDateTime submissionDate = LocalDateTime.now();
-        if (!userQuizEndsIn.containsKey(user.getUsername()) || userQuizEndsIn.getOrDefault(user.getUsername(), LocalDateTime.MIN).isBefore(LocalDateTime.now())) {
-            throw new InvalidQuizStateException("can't submit quiz, it's not started at all or ended already");
-        }
+        // running totals, the result itself is written behind and may not be counted yet
+        QuizAggregate aggregate = quizAggregateRepository.findById(quiz.id())
+                .filter(found -> found.getAttempts() > 0)
+                .orElse(null);
+        ScoreHistogram points = ScoreHistogram.from(aggregate != null ? aggregate.getObtainedPointsHistogram() : null);
+        ScoreHistogram timeTaken = ScoreHistogram.from(aggregate != null ? aggregate.getTimeTakenHistogram() : null);
+
+        return QuizResultRes.builder()
+                .quizId(quizId)
+                .userId(user.getId().toString())
+                .content(quizResult.getContent().stream().map(e -> QuizContentRes.builder().questionId(e.getQuestionId().toString()).correct(e.isCorrect()).build()).toList())
+                .obtainedPoints(quizResult.getObtainedPoints())
+                .averageTimeTaken(aggregate != null ? (double) aggregate.getTotalTimeTaken() / aggregate.getAttempts() : quizResult.getTimeTaken().doubleValue())
+                .averageObtainedPoints(aggregate != null ? (double) aggregate.getTotalObtainedPoints() / aggregate.getAttempts() : quizResult.getObtainedPoints().doubleValue())
+                .obtainedPointsPercentile(points.percentileOf(quizResult.getObtainedPoints()))
+                .medianObtainedPoints(points.valueAt(0.5))
+                .p90ObtainedPoints(points.valueAt(0.9))
+                .timeTakenPercentile(timeTaken.percentileOf(quizResult.getTimeTaken()))
+                .medianTimeTaken(timeTaken.valueAt(0.5))
+                .p90TimeTaken(timeTaken.valueAt(0.9))
+                .timeTaken(quizResult.getTimeTaken())
+                .submissionDate(quizResult.getSubmissionDate())
+                .build();
+    }
+
+    /**
+     * finalizes an attempt that ran out of time, with the answers saved during it.
+     */
+    @EventListener
+    public void autoSubmit(AttemptExpiredEvent event) {
+        AttemptSession attempt = event.attempt();
+        CompiledQuizCache.CompiledQuiz quiz = compiledQuizCache.get(attempt.getQuizId().toHexString());
+        boolean[] correct = quiz.answerKey().gradeAnswered(attempt.getSavedAnswers());
+        recordResult(quiz, attempt.getUserId(), attempt.getUsername(), correct, attempt.getStartedAt(), attempt.getDeadline());
+    }
 
-        Quiz quiz = quizRepository.findById(quizId).orElseThrow(() -> new QuizNotFoundException("can't submit answer for quiz that is not found"));
-        Integer timeTaken = Math.toIntExact(Duration.between(userQuizEndsIn.getOrDefault(user.getUsername(), LocalDateTime.MIN).minusMinutes(quiz.getTimeLimit()), submissionDate).getSeconds());
+    private QuizResult submitSessionAttempt(CompiledQuizCache.CompiledQuiz quiz, User user, boolean[] correct, Instant submittedAt) {
+        // only one of concurrent submits gets to reserve the attempt, malformed answers leave it running
+        AttemptSession attempt = attemptSessionStore.beginSubmit(user.getUsername(), quiz.id())
+                .orElseThrow(() -> new InvalidQuizStateException("can't submit quiz, it's not started at all, ended already or being submitted"));
+        QuizResult quizResult;
+        try {
+            quizResult = recordResult(quiz, user.getId(), user.getUsername(), correct, attempt.getStartedAt(), submittedAt);
+        } catch (RuntimeException e) {
+            attemptSessionStore.abortSubmit(attempt);
+            throw e;
+        }
+        attemptSessionStore.completeSubmit(attempt);
+        attemptExpiry.cancel(user.getUsername());
+        return quizResult;
+    }
 
-        if (quiz.getQuestions().size() != submitReq.getAnswers().size()) {
-            throw new InvalidAnswerFormatException("there is more or less answers than questions");
+    private QuizResult submitTokenAttempt(CompiledQuizCache.CompiledQuiz quiz, User user, String attemptToken,
+                                          boolean[] correct, Instant submittedAt) {
+        AttemptToken attempt = attemptTokens.redeem(attemptToken, quiz, user);
+        try {
+            return recordResult(quiz, user.getId(), user.getUsername(), correct, attempt.startedAt(), submittedAt);
+        } catch (RuntimeException e) {
+            attemptTokens.release(attempt);
+            throw e;
         }
+    }
+
+    private QuizResult recordResult(CompiledQuizCache.CompiledQuiz quiz, ObjectId userId, String username,
+                                    boolean[] correct, Instant startedAt, Instant submittedAt) {
+        AnswerKey answerKey = quiz.answerKey();
+        Integer timeTaken = Math.toIntExact(Duration.between(startedAt, submittedAt).getSeconds());
 
         // Initialize obtainedPoints to 0
         int obtainedPoints = 0;
 
-        // Calculate points per question based on difficulty
-        int pointsPerQuestion = switch (quiz.getDifficulty()) {
-            case "HARD" -> 45 / quiz.getQuestions().size();
-            case "MEDIUM" -> 30 / quiz.getQuestions().size();
-            default -> 20 / quiz.getQuestions().size();
-        };
-
         QuizResult quizResult = QuizResult
                 .builder()
-                .quizId(new ObjectId(quizId))
-                .userId(user.getId())
+                .id(new ObjectId()) // assigned here, so that a submission replayed from the journal is not inserted twice
+                .quizId(quiz.id())
+                .userId(userId)
                 .timeTaken(timeTaken)
-                .content(new ArrayList<>())
+                .content(new ArrayList<>(answerKey.size()))
                 .obtainedPoints(obtainedPoints)
                 .build();
 
         int countCorrect = 0;
         int countIncorrect = 0;
-        for (int i = 0; i < quiz.getQuestions().size(); i++) {
-            AnswerReq answerI = submitReq.getAnswers().get(i);
-            Quiz.Question questionI = quiz.getQuestions().get(i);
-            if (!questionI.getId().toString().equals(answerI.getQuestionId())) {
-                throw new InvalidAnswerFormatException("answer id didn't match question id");
-            }
-
-            boolean isCorrect = isCorrect(questionI, answerI);
-
+        for (int slot = 0; slot < answerKey.size(); slot++) {
             quizResult.getContent().add(QuizResult.Content
                     .builder()
-                    .questionId(questionI.getId())
-                    .isCorrect(isCorrect)
+                    .questionId(answerKey.questionId(slot))
+                    .isCorrect(correct[slot])
                     .build());
 
             // Update obtainedPoints based on correctness
-            if (isCorrect) {
-                obtainedPoints += pointsPerQuestion;
+            if (correct[slot]) {
+                obtainedPoints += quiz.pointsPerQuestion();
                 countCorrect++;
             } else {
-                obtainedPoints -= pointsPerQuestion; // Deduct points for incorrect answers
+                obtainedPoints -= quiz.pointsPerQuestion(); // Deduct points for incorrect answers
                 countIncorrect++;
             }
         }
 
-        userRepository.incrementStatsByUsername(user.getUsername(), 1, countCorrect, countIncorrect);
         // Ensure obtainedPoints is not negative
         obtainedPoints = Math.max(obtainedPoints, 0);
-        userRepository.incrementRankWeeklyPointsAndTotalAttempts(user.getUsername(), obtainedPoints, obtainedPoints);
 
         quizResult.setObtainedPoints(obtainedPoints);
-        quizResult.setSubmissionDate(submissionDate);
-        quizResultRepository.save(quizResult);
-        stopQuiz(quizId, user);
-
-        QuizAverageResultProjection averageRes =  quizResultRepository.findTotalAverageResultsByQuizId(quizId).orElseThrow(() -> new QuizNotFoundException("quiz not found"));
-
-        return QuizResultRes.builder()
-                .quizId(quizId)
-                .userId(user.getId().toString())
-                .content(quizResult.getContent().stream().map(e -> QuizContentRes.builder().questionId(e.getQuestionId().toString()).correct(e.isCorrect()).build()).toList())
-                .obtainedPoints(quizResult.getObtainedPoints())
-                .averageTimeTaken(averageRes.getAverageTimeTaken())
-                .averageObtainedPoints(averageRes.getAverageObtainedPoints())
-                .timeTaken(timeTaken)
-                .submissionDate(submissionDate)
-                .build();
-    }
-
-    private boolean isCorrect(Quiz.Question questionI, AnswerReq answerI) {
-        boolean isCorrect = false;
-
-        if (questionI.getContent() instanceof Quiz.Question.MultipleChoice) {
-            isCorrect = questionI.getContent().getCorrectOption().equals(answerI.getSelectedOption());
-        } else if (questionI.getContent() instanceof Quiz.Question.FillInTheBlank) {
-            isCorrect = questionI.getContent().getCorrectAnswer().equals(answerI.getCorrectAnswer());
-        } else if (questionI.getContent() instanceof Quiz.Question.MultipleSelect) {
-            isCorrect = questionI.getContent().getCorrectOptions().equals(answerI.getCorrectOptions());
-        }
-        return isCorrect;
+        quizResult.setSubmissionDate(LocalDateTime.ofInstant(submittedAt, ZoneId.systemDefault()));
+        // the result and the user's counters are written behind, in batches
+        submissionWriter.submit(new Submission(username, quizResult, countCorrect, countIncorrect, quiz.partitions()));
+        leaderboard.record(username, userId, obtainedPoints);
+        quizSuggestIndex.recordAttempt(quizResult.getQuizId());
+        return quizResult;
     }
 
-    public StartQuizRes getQuestions(String quizId) {
-        Quiz quiz = quizRepository.findById(quizId).orElseThrow(() -> new QuizNotFoundException("quiz not found"));
-
-        List<QuestionRes> questions = quiz.getQuestions().stream()
-                .map(this::sanitizeQuestion)
-                .toList();
-
-        return StartQuizRes.builder()
-                .questionsWithoutCorrectAnswers(questions)
-                .build();
+    /**
+     * @return the questions without their answers, as ready to send JSON.
+     */
+    public byte[] getQuestions(String quizId) {
+        return compiledQuizCache.get(quizId).questionsJson();
     }
 }
\ No newline at end of file
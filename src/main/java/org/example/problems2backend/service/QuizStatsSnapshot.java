@@ -0,0 +1,157 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizzesStatsRes;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Catalog statistics kept current by quiz writes, so reading them costs the same whatever the catalog size.
+ * Writers adjust the counters and publish a new immutable snapshot; readers only dereference it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuizStatsSnapshot
+{
+    private final QuizRepository quizRepository;
+
+    private final Object writeLock = new Object();
+    private Counters counters = new Counters();
+    private List<Consumer<Counters>> changedDuringReconcile; // null when no reconcile is running
+    private volatile QuizzesStatsRes snapshot; // null until the first build
+
+
+    // what a single quiz adds to the counters, kept so that it can be taken back on update or delete
+    private record Contribution(String difficulty, long questions, List<String> tags) {}
+
+    private static class Counters
+    {
+        private final Map<ObjectId, Contribution> contributions = new HashMap<>();
+        private final Map<String, Long> difficulties = new HashMap<>();
+        private final Map<String, Long> tags = new HashMap<>();
+        private long totalQuestions = 0;
+
+        private void add(ObjectId quizId, Contribution contribution) {
+            contributions.put(quizId, contribution);
+            totalQuestions += contribution.questions();
+            if (contribution.difficulty() != null)
+                difficulties.merge(contribution.difficulty(), 1L, Long::sum);
+            for (String tag : contribution.tags())
+                tags.merge(tag, 1L, Long::sum);
+        }
+
+        private void remove(ObjectId quizId) {
+            Contribution contribution = contributions.remove(quizId);
+            if (contribution == null)
+                return;
+            totalQuestions -= contribution.questions();
+            if (contribution.difficulty() != null)
+                decrement(difficulties, contribution.difficulty());
+            for (String tag : contribution.tags())
+                decrement(tags, tag);
+        }
+
+        private static void decrement(Map<String, Long> counts, String key) {
+            counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+
+        private QuizzesStatsRes toStats() {
+            return QuizzesStatsRes.builder()
+                    .totalQuizzes((long) contributions.size())
+                    .totalQuestions(totalQuestions)
+                    .totalEasyQuizzes(difficulties.getOrDefault("EASY", 0L))
+                    .totalMediumQuizzes(difficulties.getOrDefault("MEDIUM", 0L))
+                    .totalHardQuizzes(difficulties.getOrDefault("HARD", 0L))
+                    .totalTags(Collections.unmodifiableMap(new HashMap<>(tags)))
+                    .build();
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    // full recount, corrects any drift from writes made around the mapping layer
+    @Scheduled(initialDelay = 600_000, fixedDelay = 600_000) // every 10 minutes
+    public synchronized void reconcile() {
+        synchronized (writeLock) {
+            changedDuringReconcile = new ArrayList<>();
+        }
+
+        try {
+            Counters fresh = new Counters();
+            for (QuizSummaryProjection quiz : quizRepository.findAllProjectedBy())
+                fresh.add(quiz.getId(), contribution(quiz.getDifficulty(),
+                        quiz.getQuestionCount() != null ? quiz.getQuestionCount() : 0, quiz.getTags()));
+
+            synchronized (writeLock) {
+                // changes made while the quizzes were read may be missing from them, replaying them again is harmless
+                changedDuringReconcile.forEach(change -> change.accept(fresh));
+                counters = fresh;
+                snapshot = fresh.toStats();
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not build quiz stats snapshot, falling back to database aggregations", e);
+        } finally {
+            synchronized (writeLock) {
+                changedDuringReconcile = null;
+            }
+        }
+    }
+
+    /**
+     * @return the latest statistics, or null when they have not been built yet.
+     */
+    public QuizzesStatsRes get() {
+        return snapshot;
+    }
+
+    public void upsert(Quiz quiz) {
+        if (quiz.getId() == null)
+            return;
+        int questions = quiz.getQuestionCount() != null ? quiz.getQuestionCount()
+                : quiz.getQuestions() != null ? quiz.getQuestions().size() : 0;
+        Contribution contribution = contribution(quiz.getDifficulty(), questions, quiz.getTags());
+        apply(target -> {
+            target.remove(quiz.getId());
+            target.add(quiz.getId(), contribution);
+        });
+    }
+
+    public void remove(ObjectId quizId) {
+        apply(target -> target.remove(quizId));
+    }
+
+    // applies the change to the current counters, and to the ones being reconciled if any
+    private void apply(Consumer<Counters> change) {
+        synchronized (writeLock) {
+            change.accept(counters);
+            if (changedDuringReconcile != null)
+                changedDuringReconcile.add(change);
+            publish();
+        }
+    }
+
+    private void publish() {
+        if (snapshot != null) // a write before the first build would publish partial counts
+            snapshot = counters.toStats();
+    }
+
+    private static Contribution contribution(String difficulty, long questions, List<String> tags) {
+        return new Contribution(difficulty != null ? QuizCatalogIndex.normalizeDifficulty(difficulty) : null,
+                questions, tags != null ? tags.stream().filter(Objects::nonNull).toList() : List.of());
+    }
+}
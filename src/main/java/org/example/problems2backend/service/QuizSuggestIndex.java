@@ -0,0 +1,354 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.QuizResultRepository;
+import org.example.problems2backend.repositories.projections.QuizAttemptCountProjection;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.SuggestionRes;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Prefix autocomplete over quiz names and tags, ranked by popularity (number of attempts).
+ * Every trie node caches its best suggestions, so a lookup is a walk down the prefix.
+ * Reads take no lock; writers are serialized and refresh only the nodes on the changed paths.
+ * Attempts are only counted on submit and applied to the trie every minute, keeping the write lock off the submit path.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuizSuggestIndex
+{
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    // most attempted first, then the more widespread, then the shorter text
+    private static final Comparator<Suggestion> ORDER = Comparator.comparingLong((Suggestion s) -> s.popularity).reversed()
+            .thenComparing(Comparator.comparingInt((Suggestion s) -> s.quizIds.size()).reversed())
+            .thenComparingInt(s -> s.text.length())
+            .thenComparing(s -> s.text);
+
+    private final QuizRepository quizRepository;
+    private final QuizResultRepository quizResultRepository;
+
+    private final Object writeLock = new Object();
+    private volatile Trie trie = new Trie();
+    private List<Consumer<Trie>> changedDuringRebuild; // null when no rebuild is running
+    private final Map<ObjectId, LongAdder> pendingAttempts = new ConcurrentHashMap<>();
+
+
+    private static final class Suggestion
+    {
+        private final String text;
+        private final String type;
+        private final List<String> keys; // the normalized text starting at each of its words
+        private final Set<ObjectId> quizIds = new HashSet<>(); // only touched by writers
+        private volatile long popularity = 0;
+        private volatile ObjectId soleQuizId; // the quiz behind a quiz name shared by no other quiz
+
+        private Suggestion(String text, String type) {
+            this.text = text;
+            this.type = type;
+            List<String> words = QuizCatalogIndex.tokenize(text);
+            Set<String> keys = new LinkedHashSet<>();
+            for (int i = 0; i < words.size(); i++)
+                keys.add(String.join(" ", words.subList(i, words.size())));
+            this.keys = List.copyOf(keys);
+        }
+    }
+
+    private record QuizEntry(Suggestion name, List<Suggestion> tags, long attempts) {}
+
+    private record Children(char[] labels, Node[] nodes)
+    {
+        private static final Children EMPTY = new Children(new char[0], new Node[0]);
+
+        private Node get(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? nodes[i] : null;
+        }
+
+        private Children with(char label, Node node) {
+            int i = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newNodes = new Node[nodes.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(nodes, 0, newNodes, 0, i);
+            newLabels[i] = label;
+            newNodes[i] = node;
+            System.arraycopy(labels, i, newLabels, i + 1, labels.length - i);
+            System.arraycopy(nodes, i, newNodes, i + 1, nodes.length - i);
+            return new Children(newLabels, newNodes);
+        }
+
+        private Children without(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i < 0)
+                return this;
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newNodes = new Node[nodes.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(nodes, 0, newNodes, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(nodes, i + 1, newNodes, i, nodes.length - i - 1);
+            return new Children(newLabels, newNodes);
+        }
+    }
+
+    private static final class Node
+    {
+        private volatile Children children = Children.EMPTY;
+        private volatile Suggestion[] top = NONE;
+        private final List<Suggestion> terminals = new ArrayList<>(1); // suggestions with a key ending here
+    }
+
+    private static final class Trie
+    {
+        private final Node root = new Node();
+        private final Map<ObjectId, QuizEntry> quizzes = new HashMap<>();
+        private final Map<String, Suggestion> names = new HashMap<>(); // normalized name -> suggestion
+        private final Map<String, Suggestion> tags = new HashMap<>();
+
+        private void addQuiz(ObjectId quizId, String name, List<String> quizTags, long attempts, boolean refresh) {
+            List<Suggestion> touched = new ArrayList<>();
+            Suggestion nameSuggestion = null;
+            if (name != null && !name.isBlank()) {
+                nameSuggestion = names.computeIfAbsent(String.join(" ", QuizCatalogIndex.tokenize(name)),
+                        k -> insert(new Suggestion(name, "QUIZ")));
+                touched.add(nameSuggestion);
+            }
+            List<Suggestion> tagSuggestions = new ArrayList<>();
+            if (quizTags != null)
+                for (String tag : new LinkedHashSet<>(quizTags)) {
+                    Suggestion tagSuggestion = tags.computeIfAbsent(tag, k -> insert(new Suggestion(tag, "TAG")));
+                    tagSuggestions.add(tagSuggestion);
+                    touched.add(tagSuggestion);
+                }
+
+            for (Suggestion suggestion : touched) {
+                suggestion.quizIds.add(quizId);
+                suggestion.soleQuizId = suggestion.quizIds.size() == 1 ? quizId : null;
+                suggestion.popularity += attempts;
+                if (refresh)
+                    refreshPaths(suggestion);
+            }
+            quizzes.put(quizId, new QuizEntry(nameSuggestion, tagSuggestions, attempts));
+        }
+
+        private void removeQuiz(ObjectId quizId) {
+            QuizEntry entry = quizzes.remove(quizId);
+            if (entry == null)
+                return;
+            if (entry.name() != null)
+                detach(entry.name(), quizId, entry.attempts(), names, String.join(" ", QuizCatalogIndex.tokenize(entry.name().text)));
+            for (Suggestion tag : entry.tags())
+                detach(tag, quizId, entry.attempts(), tags, tag.text);
+        }
+
+        private void recordAttempts(Map<ObjectId, Long> attempts) {
+            Set<Suggestion> touched = new HashSet<>();
+            attempts.forEach((quizId, count) -> {
+                QuizEntry entry = quizzes.get(quizId);
+                if (entry == null)
+                    return;
+                quizzes.put(quizId, new QuizEntry(entry.name(), entry.tags(), entry.attempts() + count));
+                if (entry.name() != null) {
+                    entry.name().popularity += count;
+                    touched.add(entry.name());
+                }
+                for (Suggestion tag : entry.tags()) {
+                    tag.popularity += count;
+                    touched.add(tag);
+                }
+            });
+            touched.forEach(this::refreshPaths);
+        }
+
+        private void detach(Suggestion suggestion, ObjectId quizId, long attempts, Map<String, Suggestion> owner, String ownerKey) {
+            suggestion.quizIds.remove(quizId);
+            suggestion.soleQuizId = suggestion.quizIds.size() == 1 ? suggestion.quizIds.iterator().next() : null;
+            suggestion.popularity -= attempts;
+            if (suggestion.quizIds.isEmpty()) {
+                owner.remove(ownerKey);
+                for (String key : suggestion.keys)
+                    path(key, false).get(key.length()).terminals.remove(suggestion);
+            }
+            refreshPaths(suggestion);
+        }
+
+        private Suggestion insert(Suggestion suggestion) {
+            for (String key : suggestion.keys)
+                path(key, true).get(key.length()).terminals.add(suggestion);
+            return suggestion;
+        }
+
+        // nodes from the root down to the end of the key, missing nodes are created when asked to
+        private List<Node> path(String key, boolean create) {
+            List<Node> nodes = new ArrayList<>(key.length() + 1);
+            Node node = root;
+            nodes.add(node);
+            for (int i = 0; i < key.length(); i++) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    if (!create)
+                        break;
+                    child = new Node();
+                    node.children = node.children.with(key.charAt(i), child);
+                }
+                node = child;
+                nodes.add(node);
+            }
+            return nodes;
+        }
+
+        private void refreshPaths(Suggestion suggestion) {
+            for (String key : suggestion.keys) {
+                List<Node> nodes = path(key, false);
+                for (int depth = nodes.size() - 1; depth >= 0; depth--) {
+                    Node node = nodes.get(depth);
+                    refresh(node);
+                    // drop branches that no longer lead to any suggestion
+                    if (depth > 0 && node.top.length == 0)
+                        nodes.get(depth - 1).children = nodes.get(depth - 1).children.without(key.charAt(depth - 1));
+                }
+            }
+        }
+
+        private void refreshAll(Node node) {
+            for (Node child : node.children.nodes())
+                refreshAll(child);
+            refresh(node);
+        }
+
+        // the best suggestions under a node are among its own terminals and its children's best suggestions
+        private static void refresh(Node node) {
+            Set<Suggestion> candidates = new HashSet<>(node.terminals);
+            for (Node child : node.children.nodes())
+                Collections.addAll(candidates, child.top);
+            List<Suggestion> ranked = new ArrayList<>(candidates);
+            ranked.sort(ORDER);
+            node.top = ranked.subList(0, Math.min(MAX_SUGGESTIONS, ranked.size())).toArray(NONE);
+        }
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelay = 600_000, fixedDelay = 600_000) // every 10 minutes
+    public synchronized void rebuild() {
+        synchronized (writeLock) {
+            changedDuringRebuild = new ArrayList<>();
+        }
+
+        try {
+            // the attempts counted since the last apply are in the results counted below, except those not written yet
+            pendingAttempts.clear();
+            Map<ObjectId, Long> attempts = new HashMap<>();
+            for (QuizAttemptCountProjection count : quizResultRepository.countAttemptsByQuiz())
+                attempts.put(count.get_id(), count.getCount());
+
+            Trie fresh = new Trie();
+            for (QuizSummaryProjection quiz : quizRepository.findAllProjectedBy())
+                fresh.addQuiz(quiz.getId(), quiz.getName(), quiz.getTags(), attempts.getOrDefault(quiz.getId(), 0L), false);
+            fresh.refreshAll(fresh.root);
+
+            synchronized (writeLock) {
+                // changes made while the quizzes were read may be missing from them, replaying them again is harmless
+                changedDuringRebuild.forEach(change -> change.accept(fresh));
+                trie = fresh;
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not build quiz suggestion index", e);
+        } finally {
+            synchronized (writeLock) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000) // every minute
+    public void applyAttempts() {
+        Map<ObjectId, Long> attempts = new HashMap<>();
+        pendingAttempts.forEach((quizId, count) -> {
+            long added = count.sumThenReset();
+            if (added > 0)
+                attempts.put(quizId, added);
+        });
+        if (attempts.isEmpty())
+            return;
+        synchronized (writeLock) {
+            trie.recordAttempts(attempts);
+        }
+    }
+
+    public void upsert(Quiz quiz) {
+        if (quiz.getId() == null)
+            return;
+        apply(target -> {
+            QuizEntry previous = target.quizzes.get(quiz.getId());
+            target.removeQuiz(quiz.getId());
+            target.addQuiz(quiz.getId(), quiz.getName(), quiz.getTags(), previous != null ? previous.attempts() : 0, true);
+        });
+    }
+
+    public void remove(ObjectId quizId) {
+        apply(target -> target.removeQuiz(quizId));
+    }
+
+    // counted on the submit path without taking the write lock, applied by applyAttempts
+    public void recordAttempt(ObjectId quizId) {
+        pendingAttempts.computeIfAbsent(quizId, k -> new LongAdder()).increment();
+    }
+
+    // applies the change to the current trie, and to the one being rebuilt if any
+    private void apply(Consumer<Trie> change) {
+        synchronized (writeLock) {
+            change.accept(trie);
+            if (changedDuringRebuild != null)
+                changedDuringRebuild.add(change);
+        }
+    }
+
+    /**
+     * @param prefix beginning of a quiz name or tag, or of any of their words.
+     * @param limit maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}.
+     * @return the most popular matching quiz names and tags.
+     */
+    public List<SuggestionRes> suggest(String prefix, int limit) {
+        String key = String.join(" ", QuizCatalogIndex.tokenize(prefix));
+        Node node = trie.root;
+        for (int i = 0; i < key.length() && node != null; i++)
+            node = node.children.get(key.charAt(i));
+        if (node == null)
+            return List.of();
+
+        Suggestion[] top = node.top;
+        List<SuggestionRes> suggestions = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && i < limit; i++) {
+            Suggestion suggestion = top[i];
+            suggestions.add(SuggestionRes.builder()
+                    .text(suggestion.text)
+                    .type(suggestion.type)
+                    .quizId(suggestion.type.equals("QUIZ") && suggestion.soleQuizId != null ?
+                            suggestion.soleQuizId.toString() : null)
+                    .popularity(suggestion.popularity)
+                    .build());
+        }
+        return suggestions;
+    }
+}
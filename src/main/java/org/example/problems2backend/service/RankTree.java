@@ -0,0 +1,223 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+
+import java.util.*;
+
+/**
+ * Order-statistic treap of users by points, highest first, ties broken by the older user id.
+ * Every node knows the size of its subtree, so finding a user's rank and the user at a rank are both O(log n),
+ * and reading count users from a rank is O(log n + count). Not thread safe.
+ */
+public final class RankTree
+{
+    private final Map<String, Node> byUsername = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+
+    private static final class Node
+    {
+        private final String username;
+        private final ObjectId userId;
+        private final long points;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(String username, ObjectId userId, long points, int priority) {
+            this.username = username;
+            this.userId = userId;
+            this.points = points;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * @param rank position on the board, starting at 1.
+     */
+    public record Entry(long rank, String username, long points) {}
+
+
+    public int size() {
+        return byUsername.size();
+    }
+
+    /**
+     * @return the user's points, null when the user is not on the board.
+     */
+    public Long pointsOf(String username) {
+        Node node = byUsername.get(username);
+        return node != null ? node.points : null;
+    }
+
+    /**
+     * @return the user's id, null when the user is not on the board.
+     */
+    public ObjectId userIdOf(String username) {
+        Node node = byUsername.get(username);
+        return node != null ? node.userId : null;
+    }
+
+    public void set(String username, ObjectId userId, long points) {
+        remove(username);
+        Node node = new Node(username, userId, points, random.nextInt());
+        root = insert(root, node);
+        byUsername.put(username, node);
+    }
+
+    /**
+     * Adds to the user's points, putting the user on the board when missing.
+     */
+    public void add(String username, ObjectId userId, long points) {
+        Node node = byUsername.get(username);
+        if (node != null && points == 0)
+            return;
+        set(username, node != null ? node.userId : userId, (node != null ? node.points : 0) + points);
+    }
+
+    /**
+     * @return a board of the same users, all with no points.
+     */
+    public RankTree cleared() {
+        RankTree cleared = new RankTree();
+        byUsername.values().forEach(node -> cleared.set(node.username, node.userId, 0));
+        return cleared;
+    }
+
+    public void remove(String username) {
+        Node node = byUsername.remove(username);
+        if (node != null)
+            root = delete(root, node);
+    }
+
+    /**
+     * @return the user's rank starting at 1, or -1 when the user is not on the board.
+     */
+    public long rankOf(String username) {
+        Node target = byUsername.get(username);
+        if (target == null)
+            return -1;
+        long before = 0;
+        Node node = root;
+        while (node != target) {
+            if (compare(target, node) < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return before + size(node.left) + 1;
+    }
+
+    /**
+     * @param from first rank to read, starting at 1.
+     * @return up to count users in rank order.
+     */
+    public List<Entry> range(long from, int count) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(count, size())));
+        long skip = Math.max(from, 1) - 1;
+        if (count <= 0 || skip >= size())
+            return entries;
+
+        // descend to the first node to read, stacking the nodes that come after it on the way
+        Deque<Node> next = new ArrayDeque<>();
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                next.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                next.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        long rank = Math.max(from, 1);
+        while (!next.isEmpty() && entries.size() < count) {
+            Node current = next.pop();
+            entries.add(new Entry(rank++, current.username, current.points));
+            for (Node child = current.right; child != null; child = child.left)
+                next.push(child);
+        }
+        return entries;
+    }
+
+
+    // negative when a ranks above b
+    private static int compare(Node a, Node b) {
+        int byPoints = Long.compare(b.points, a.points);
+        return byPoints != 0 ? byPoints : a.userId.compareTo(b.userId);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null)
+            return inserted;
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            return update(inserted);
+        }
+        if (compare(inserted, node) < 0)
+            node.left = insert(node.left, inserted);
+        else
+            node.right = insert(node.right, inserted);
+        return update(node);
+    }
+
+    private static Node delete(Node node, Node deleted) {
+        if (node == deleted)
+            return merge(node.left, node.right);
+        if (compare(deleted, node) < 0)
+            node.left = delete(node.left, deleted);
+        else
+            node.right = delete(node.right, deleted);
+        return update(node);
+    }
+
+    // the nodes ranking above the key, and the others
+    private static Node[] split(Node node, Node key) {
+        if (node == null)
+            return new Node[2];
+        if (compare(node, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+
+    // every node of a ranks above every node of b
+    private static Node merge(Node a, Node b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+}
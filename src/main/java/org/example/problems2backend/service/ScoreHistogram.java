@@ -0,0 +1,95 @@
+package org.example.problems2backend.service;
+
+import java.util.Map;
+
+/**
+ * Fixed log-linear histogram of non-negative integers, in the way of HDR histograms: values below 32 have a bucket
+ * each, above that every power of two is split into 16 buckets, so a value is known within about 6%. Points and
+ * seconds up to 2^20 fit in {@value #BUCKETS} buckets.
+ * <p>
+ * Counts are kept as a map from bucket index to count, which mongo can increment in place and which stays small
+ * since only reached buckets appear in it. Histograms merge by adding the counts of each bucket.
+ */
+public final class ScoreHistogram
+{
+    private static final int EXACT = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAX_BITS = 20;
+    public static final int BUCKETS = SUB_BUCKETS * (MAX_BITS - 3);
+
+    private final long[] counts = new long[BUCKETS];
+    private long total = 0;
+
+
+    public static ScoreHistogram from(Map<String, Long> counts) {
+        ScoreHistogram histogram = new ScoreHistogram();
+        if (counts == null)
+            return histogram;
+        counts.forEach((bucket, count) -> {
+            int index = Integer.parseInt(bucket);
+            if (index >= 0 && index < BUCKETS && count != null && count > 0) {
+                histogram.counts[index] += count;
+                histogram.total += count;
+            }
+        });
+        return histogram;
+    }
+
+    /**
+     * @return the index of the bucket holding the value, as the key it is counted under.
+     */
+    public static String key(long value) {
+        return Integer.toString(bucketOf(value));
+    }
+
+    public static int bucketOf(long value) {
+        long clamped = Math.max(0, Math.min(value, (1L << MAX_BITS) - 1));
+        if (clamped < EXACT)
+            return (int) clamped;
+        int shift = 63 - Long.numberOfLeadingZeros(clamped) - 4; // leaves the 5 highest bits, in [16, 32)
+        return SUB_BUCKETS * shift + (int) (clamped >>> shift);
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return the share of counted values below the value, counting those in its bucket as half below, from 0 to 100.
+     *         Null when nothing is counted.
+     */
+    public Double percentileOf(long value) {
+        if (total == 0)
+            return null;
+        int bucket = bucketOf(value);
+        long below = 0;
+        for (int i = 0; i < bucket; i++)
+            below += counts[i];
+        return 100.0 * (below + counts[bucket] / 2.0) / total;
+    }
+
+    /**
+     * @param quantile from 0 to 1.
+     * @return the middle of the bucket holding the value at the quantile, null when nothing is counted.
+     */
+    public Long valueAt(double quantile) {
+        if (total == 0)
+            return null;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return (lowerBound(i) + lowerBound(i + 1) - 1) / 2;
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+
+    private static long lowerBound(int bucket) {
+        if (bucket < EXACT)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.problems2backend.service;
+
+import org.example.problems2backend.models.QuizResult;
+
+import java.util.List;
+
+/**
+ * A graded attempt waiting to be written: its result, and what it adds to the user's counters.
+ * @param result with its id already assigned, so that writing it twice is noticed.
+ * @param partitions the leaderboard partitions of the quiz, see {@link PartitionBoards}.
+ */
+public record Submission(String username, QuizResult result, int correctAnswers, int incorrectAnswers,
+                         List<String> partitions) {}
@@ -0,0 +1,289 @@
+package org.example.problems2backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Local spill file of the submissions accepted but not yet written to the database, so that they are written after a
+ * crash. Every submission gets a sequence number, in the order it was appended; the journal is made of segment files
+ * named after their first sequence number, and a segment is deleted once all of its submissions are written. The
+ * last written sequence number is checkpointed after every batch, so that a segment written in part is recovered in part.
+ * <p>
+ * Appends reach the operating system before returning but are not forced to disk, they survive the process crashing
+ * rather than the machine.
+ * <p>
+ * Submissions the database keeps rejecting are set aside in dead letter files, in the same format, under the
+ * dead-letter directory of the journal.
+ */
+@Slf4j
+public final class SubmissionJournal
+    implements Closeable
+{
+    private static final long SEGMENT_BYTES = 4 << 20;
+    private static final String SUFFIX = ".log";
+    private static final String CHECKPOINT = "written";
+    private static final String DEAD_LETTER = "dead-letter";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES; // payload length, then its crc
+
+    private final Path directory;
+    private final Deque<Segment> closed = new ArrayDeque<>(); // oldest first
+    private Segment current;
+    private FileChannel channel;
+
+
+    private static final class Segment
+    {
+        private final Path path;
+        private final long firstSeq;
+        private long lastSeq; // firstSeq - 1 while empty
+
+        private Segment(Path path, long firstSeq) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.lastSeq = firstSeq - 1;
+        }
+    }
+
+    /**
+     * @param seq the number to hand back to {@link #writtenThrough(long)} once the submission is in the database.
+     */
+    public record Entry(long seq, Submission submission) {}
+
+
+    private SubmissionJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the journal kept in the directory, creating it when missing.
+     * @param recovered receives the submissions left over by the previous run, oldest first.
+     */
+    public static SubmissionJournal open(Path directory, List<Entry> recovered) throws IOException {
+        Files.createDirectories(directory);
+        SubmissionJournal journal = new SubmissionJournal(directory);
+
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).forEach(path -> {
+                String name = path.getFileName().toString();
+                try {
+                    segments.add(new Segment(path, Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+                } catch (NumberFormatException e) {
+                    log.warn("ignoring unknown file {} in submission journal", path);
+                }
+            });
+        }
+        segments.sort((a, b) -> Long.compare(a.firstSeq, b.firstSeq));
+
+        long written = readCheckpoint(directory.resolve(CHECKPOINT));
+        long nextSeq = 1;
+        for (Segment segment : segments) {
+            // a later segment never starts before the end of an earlier one, entries past a torn write are lost
+            long seq = Math.max(segment.firstSeq, nextSeq);
+            for (Submission submission : read(segment.path)) {
+                if (seq > written)
+                    recovered.add(new Entry(seq, submission));
+                seq++;
+            }
+            segment.lastSeq = seq - 1;
+            nextSeq = seq;
+            if (segment.lastSeq < segment.firstSeq || segment.lastSeq <= written)
+                Files.deleteIfExists(segment.path);
+            else
+                journal.closed.add(segment);
+        }
+        journal.roll(Math.max(nextSeq, written + 1), false);
+        return journal;
+    }
+
+    /**
+     * @return the sequence number of the submission.
+     */
+    public synchronized long append(Submission submission) throws IOException {
+        ByteBuffer record = record(submission);
+        while (record.hasRemaining())
+            channel.write(record);
+
+        long seq = ++current.lastSeq;
+        if (channel.position() >= SEGMENT_BYTES)
+            roll(seq + 1, false);
+        return seq;
+    }
+
+    /**
+     * Forgets the submissions up to the sequence number, they are in the database.
+     */
+    public synchronized void writtenThrough(long seq) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        Path next = directory.resolve(CHECKPOINT + ".next");
+        Files.write(next, ByteBuffer.allocate(Long.BYTES).putLong(seq).array());
+        Files.move(next, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        while (!closed.isEmpty() && closed.peekFirst().lastSeq <= seq)
+            Files.deleteIfExists(closed.pollFirst().path);
+        if (current.lastSeq >= current.firstSeq && current.lastSeq <= seq) // the whole segment is written, start afresh
+            roll(current.lastSeq + 1, true);
+    }
+
+    /**
+     * Sets the submissions aside, they are not written again. Their sequence numbers still have to be handed to
+     * {@link #writtenThrough(long)}.
+     * @return the dead letter file holding them, named after the first one's sequence number.
+     */
+    public synchronized Path deadLetter(List<Entry> entries) throws IOException {
+        Path deadLetters = Files.createDirectories(directory.resolve(DEAD_LETTER));
+        Path path = deadLetters.resolve(entries.get(0).seq() + SUFFIX);
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : entries) {
+                ByteBuffer record = record(entry.submission());
+                while (record.hasRemaining())
+                    out.write(record);
+            }
+            out.force(true);
+        }
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+
+    // a written segment is deleted, a full one is kept until it is written
+    private void roll(long firstSeq, boolean written) throws IOException {
+        if (channel != null) {
+            channel.close();
+            if (written || current.lastSeq < current.firstSeq)
+                Files.deleteIfExists(current.path);
+            else
+                closed.add(current);
+        }
+        current = new Segment(directory.resolve(firstSeq + SUFFIX), firstSeq);
+        channel = FileChannel.open(current.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+
+    private static ByteBuffer record(Submission submission) throws IOException {
+        byte[] payload = encode(submission);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .put(payload)
+                .flip();
+    }
+
+    private static long readCheckpoint(Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint))
+            return 0;
+        byte[] bytes = Files.readAllBytes(checkpoint);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    static List<Submission> read(Path path) throws IOException {
+        List<Submission> submissions = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                int crc;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    crc = in.readInt();
+                    if (length < 0 || length > SEGMENT_BYTES)
+                        break;
+                    payload = in.readNBytes(length);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (payload.length != length || crc(payload) != crc) {
+                    log.warn("submission journal {} ends with a torn write, {} submissions recovered from it", path, submissions.size());
+                    break;
+                }
+                submissions.add(decode(payload));
+            }
+        }
+        return submissions;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(Submission submission) throws IOException {
+        QuizResult result = submission.result();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + 13 * result.getContent().size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(submission.username());
+        out.write(result.getId().toByteArray());
+        out.write(result.getUserId().toByteArray());
+        out.write(result.getQuizId().toByteArray());
+        out.writeLong(result.getSubmissionDate().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(result.getSubmissionDate().getNano());
+        out.writeInt(result.getObtainedPoints());
+        out.writeInt(result.getTimeTaken());
+        out.writeInt(submission.correctAnswers());
+        out.writeInt(submission.incorrectAnswers());
+        out.writeInt(result.getContent().size());
+        for (QuizResult.Content content : result.getContent()) {
+            out.write(content.getQuestionId().toByteArray());
+            out.writeBoolean(content.isCorrect());
+        }
+        out.writeInt(submission.partitions().size());
+        for (String partition : submission.partitions())
+            out.writeUTF(partition);
+        return bytes.toByteArray();
+    }
+
+    private static Submission decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String username = in.readUTF();
+        QuizResult result = QuizResult.builder()
+                .id(readObjectId(in))
+                .userId(readObjectId(in))
+                .quizId(readObjectId(in))
+                .submissionDate(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC))
+                .obtainedPoints(in.readInt())
+                .timeTaken(in.readInt())
+                .build();
+        int correctAnswers = in.readInt();
+        int incorrectAnswers = in.readInt();
+        int size = in.readInt();
+        List<QuizResult.Content> contents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            contents.add(new QuizResult.Content(readObjectId(in), in.readBoolean()));
+        result.setContent(contents);
+        List<String> partitions = new ArrayList<>();
+        if (in.available() > 0) // journaled before submissions had partitions otherwise
+            for (int i = in.readInt(); i > 0; i--)
+                partitions.add(in.readUTF());
+        return new Submission(username, result, correctAnswers, incorrectAnswers, partitions);
+    }
+
+    private static ObjectId readObjectId(DataInputStream in) throws IOException {
+        byte[] id = new byte[12];
+        in.readFully(id);
+        return new ObjectId(id);
+    }
+}
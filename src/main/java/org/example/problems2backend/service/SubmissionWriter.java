@@ -0,0 +1,441 @@
+package org.example.problems2backend.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InternalServerErrorException;
+import org.example.problems2backend.exceptions.ServiceOverloadedException;
+import org.example.problems2backend.models.PartitionPoints;
+import org.example.problems2backend.models.QuizAggregate;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.models.UserAnalytics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes submissions behind the request that made them: they are journaled, queued, and a single writer thread
+ * coalesces them into batches of one insert of all the results, one $inc per quiz aggregate, one update per user,
+ * one update of the user's analytics per day and one $inc per user and leaderboard partition, whose totals are then
+ * handed to {@link PartitionBoards}.
+ * Weekly points are added when the user's are of the same week, replace them when of an earlier week and are dropped
+ * when of a later one, all within the update, so that no job has to reset them when the week is over. Replaced
+ * weekly points are kept as the previous ones, for {@link WeeklySnapshots} to archive.
+ * <p>
+ * At most queue capacity submissions are accepted and not yet written, past that submitting fails fast with
+ * {@link ServiceOverloadedException}. On shutdown the queue is drained; whatever could not be written stays in the
+ * journal and is written at the next start. A batch that fails is retried from the first operation it did not apply,
+ * so a failed write is not counted twice. The exceptions are an attempt cut short with its outcome unknown, such as a
+ * lost connection, and a submission replayed from the journal after a crash. That submission keeps its result id, so
+ * the result is not inserted twice, but its counters may be incremented twice.
+ * <p>
+ * A batch the database keeps rejecting, rather than one it cannot be reached for, is given up after a few attempts:
+ * it is set aside in a dead letter file of the journal and the next batches are written.
+ * <p>
+ * When the journal fails, the writer stops and submitting fails from then on.
+ */
+@Slf4j
+@Component
+@DependsOn({"weeklyEpochMigration", "partitionPointsBackfill", "userAnalyticsBackfill"}) // run before any increment is written
+public class SubmissionWriter
+{
+    private static final Duration ENQUEUE_TIMEOUT = Duration.ofMillis(250);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(5);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int MAX_REJECTED_ATTEMPTS = 5;
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final MongoTemplate mongoTemplate;
+    private final PartitionBoards partitionBoards;
+    private final int flushSize;
+    private final long flushLatencyNanos;
+
+    private final SubmissionJournal journal;
+    private final LinkedBlockingQueue<SubmissionJournal.Entry> queue = new LinkedBlockingQueue<>();
+    private final Semaphore capacity; // a permit per submission accepted and not yet written
+    private final Thread writer;
+    private volatile boolean accepting = true;
+    private volatile boolean failed; // the writer is gone, nothing submitted would be written
+
+
+    // a batch spanning the start of a week has a user's points of each week added apart
+    private record UserWeek(String username, int weeklyEpoch) {}
+
+    // and one spanning midnight the attempts of each day, for the streak
+    private record UserDay(ObjectId userId, long epochDay) {}
+
+    // a bulk write of a batch, keeping the operations not applied yet so that a retry sends only those
+    private final class Step
+    {
+        private final BulkOperations.BulkMode mode;
+        private final Class<?> entityClass;
+        private List<Consumer<BulkOperations>> pending = new ArrayList<>();
+
+        private Step(BulkOperations.BulkMode mode, Class<?> entityClass) {
+            this.mode = mode;
+            this.entityClass = entityClass;
+        }
+
+        private void execute() {
+            if (pending.isEmpty())
+                return;
+            BulkOperations bulk = mongoTemplate.bulkOps(mode, entityClass);
+            pending.forEach(operation -> operation.accept(bulk));
+            try {
+                bulk.execute();
+                pending = List.of();
+            } catch (BulkOperationException e) {
+                pending = notApplied(e.getErrors());
+                throw e;
+            } catch (DataIntegrityViolationException e) {
+                // a write concern error: the operations without a write error were applied, if not yet replicated
+                if (!(e.getCause() instanceof MongoBulkWriteException cause))
+                    throw e;
+                pending = notApplied(cause.getWriteErrors());
+                if (!pending.isEmpty())
+                    throw e;
+                log.warn("{} writes were applied but not acknowledged as the write concern asks", entityClass.getSimpleName(), e);
+            }
+        }
+
+        // every operation without an error was applied, except past the first error of an ordered bulk
+        private List<Consumer<BulkOperations>> notApplied(List<BulkWriteError> errors) {
+            if (errors.isEmpty())
+                return List.of();
+            if (mode == BulkOperations.BulkMode.ORDERED)
+                return new ArrayList<>(pending.subList(errors.get(0).getIndex(), pending.size()));
+            List<Consumer<BulkOperations>> notApplied = new ArrayList<>();
+            errors.forEach(error -> notApplied.add(pending.get(error.getIndex())));
+            return notApplied;
+        }
+    }
+
+    // the writes of a batch, in order, resumed from the first one not done
+    private final class BatchWrite
+    {
+        private final List<QuizResult> results;
+        private final List<Step> steps;
+        private final Set<String> partitionIds;
+        private boolean resultsInserted;
+
+        private BatchWrite(List<QuizResult> results, List<Step> steps, Set<String> partitionIds) {
+            this.results = results;
+            this.steps = steps;
+            this.partitionIds = partitionIds;
+        }
+
+        private void resume() {
+            if (!resultsInserted) {
+                try {
+                    mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizResult.class)
+                            .insert(results)
+                            .execute();
+                } catch (BulkOperationException e) {
+                    // results already inserted by an attempt cut short, the rest went in
+                    for (BulkWriteError error : e.getErrors())
+                        if (error.getCode() != DUPLICATE_KEY)
+                            throw e;
+                } catch (DataIntegrityViolationException e) {
+                    // and the same with a write concern error
+                    if (!(e.getCause() instanceof MongoBulkWriteException cause))
+                        throw e;
+                    for (BulkWriteError error : cause.getWriteErrors())
+                        if (error.getCode() != DUPLICATE_KEY)
+                            throw e;
+                }
+                resultsInserted = true;
+            }
+
+            for (Step step : steps)
+                step.execute();
+
+            if (!partitionIds.isEmpty())
+                partitionBoards.update(mongoTemplate.find(
+                        new Query(Criteria.where("_id").in(partitionIds)), PartitionPoints.class));
+        }
+    }
+
+
+    public SubmissionWriter(MongoTemplate mongoTemplate,
+                            PartitionBoards partitionBoards,
+                            @Value("${spring.application.submission_flush_size:500}") int flushSize,
+                            @Value("${spring.application.submission_flush_latency_ms:50}") long flushLatencyMillis,
+                            @Value("${spring.application.submission_queue_capacity:10000}") int queueCapacity,
+                            @Value("${spring.application.submission_journal_dir:submission-journal}") String journalDirectory)
+            throws IOException {
+        this.mongoTemplate = mongoTemplate;
+        this.partitionBoards = partitionBoards;
+        this.flushSize = flushSize;
+        this.flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+
+        List<SubmissionJournal.Entry> recovered = new ArrayList<>();
+        this.journal = SubmissionJournal.open(Path.of(journalDirectory), recovered);
+        if (!recovered.isEmpty())
+            log.info("writing {} submissions recovered from the journal", recovered.size());
+        this.queue.addAll(recovered);
+        this.capacity = new Semaphore(queueCapacity - recovered.size()); // negative until the recovered ones are written
+
+        this.writer = new Thread(this::run, "submission-writer");
+        this.writer.setDaemon(true); // drained by stop, the journal covers an exit without it
+        this.writer.start();
+    }
+
+    /**
+     * Accepts the submission for writing, it is safe from a process crash once this returns.
+     * @throws ServiceOverloadedException when too many submissions are waiting to be written.
+     */
+    public void submit(Submission submission) {
+        if (failed)
+            throw new InternalServerErrorException("could not accept submission");
+        boolean acquired;
+        try {
+            acquired = accepting && capacity.tryAcquire(ENQUEUE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired)
+            throw new ServiceOverloadedException("too many submissions are being processed, please submit again");
+
+        try {
+            synchronized (journal) { // queued in journal order, so that written sequence numbers only grow
+                queue.add(new SubmissionJournal.Entry(journal.append(submission), submission));
+            }
+        } catch (IOException e) {
+            capacity.release();
+            log.error("could not journal submission", e);
+            throw new InternalServerErrorException("could not accept submission");
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        accepting = false;
+        writer.join(DRAIN_TIMEOUT.toMillis());
+        if (writer.isAlive())
+            log.warn("submission writer did not drain in time, {} submissions are left to the journal", queue.size());
+        else
+            journal.close();
+    }
+
+
+    private void run() {
+        List<SubmissionJournal.Entry> batch = new ArrayList<>(flushSize);
+        try {
+            while (accepting || !queue.isEmpty()) {
+                SubmissionJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+
+                // wait for the batch to fill, but no longer than the flush latency after its first submission
+                long flushBy = System.nanoTime() + flushLatencyNanos;
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long wait = flushBy - System.nanoTime();
+                    if (batch.size() >= flushSize || wait <= 0 || !accepting) // stopping, write what is queued
+                        break;
+                    SubmissionJournal.Entry next = queue.poll(Math.min(wait, POLL_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null)
+                        batch.add(next);
+                }
+
+                if (!writeWithRetry(batch))
+                    return;
+                journal.writtenThrough(batch.get(batch.size() - 1).seq());
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failed = true;
+            log.error("submission journal failed, submissions are no longer accepted", e);
+        }
+    }
+
+    // retries until written or set aside, or until shutdown leaves the batch to the journal
+    private boolean writeWithRetry(List<SubmissionJournal.Entry> batch) throws InterruptedException, IOException {
+        BatchWrite write = writeOf(batch);
+        long delay = 100;
+        int rejected = 0;
+        while (true) {
+            try {
+                write.resume();
+                return true;
+            } catch (RuntimeException e) {
+                if (!accepting) {
+                    log.warn("could not write {} submissions while shutting down, they are left to the journal", batch.size(), e);
+                    return false;
+                }
+                // the database unreachable is waited out, a batch it keeps rejecting would hold back all the others
+                if (!isTransient(e) && ++rejected >= MAX_REJECTED_ATTEMPTS) {
+                    log.error("could not write {} submissions, some of them may be written in part, they are set aside in {}",
+                            batch.size(), journal.deadLetter(batch), e);
+                    return true;
+                }
+                log.warn("could not write {} submissions, retrying in {} ms", batch.size(), delay, e);
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY.toMillis());
+            }
+        }
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException;
+    }
+
+    private BatchWrite writeOf(List<SubmissionJournal.Entry> batch) {
+        List<QuizResult> results = new ArrayList<>(batch.size());
+        Map<ObjectId, Map<String, Long>> quizIncrements = new LinkedHashMap<>(); // by quiz: field to increment by
+        Map<UserWeek, int[]> increments = new LinkedHashMap<>(); // by user and week: attempts, correct, incorrect, points
+        Map<String, PartitionPoints> partitionIncrements = new LinkedHashMap<>(); // by id: the points to add
+        Map<UserDay, UserAnalytics> analyticsIncrements = new LinkedHashMap<>(); // in submission order, so days only go forward
+        for (SubmissionJournal.Entry entry : batch) {
+            Submission submission = entry.submission();
+            results.add(submission.result());
+            int points = submission.result().getObtainedPoints();
+            int timeTaken = submission.result().getTimeTaken();
+            Map<String, Long> quizIncrement = quizIncrements.computeIfAbsent(submission.result().getQuizId(), k -> new LinkedHashMap<>());
+            quizIncrement.merge("attempts", 1L, Long::sum);
+            quizIncrement.merge("totalObtainedPoints", (long) points, Long::sum);
+            quizIncrement.merge("totalTimeTaken", (long) timeTaken, Long::sum);
+            quizIncrement.merge("obtainedPointsHistogram." + ScoreHistogram.key(points), 1L, Long::sum);
+            quizIncrement.merge("timeTakenHistogram." + ScoreHistogram.key(timeTaken), 1L, Long::sum);
+            UserWeek userWeek = new UserWeek(submission.username(), WeeklyEpoch.of(submission.result().getSubmissionDate()));
+            int[] increment = increments.computeIfAbsent(userWeek, k -> new int[4]);
+            increment[0]++;
+            increment[1] += submission.correctAnswers();
+            increment[2] += submission.incorrectAnswers();
+            increment[3] += submission.result().getObtainedPoints();
+            UserAnalytics analyticsIncrement = analyticsIncrements.computeIfAbsent(
+                    new UserDay(submission.result().getUserId(), submission.result().getSubmissionDate().toLocalDate().toEpochDay()),
+                    userDay -> UserAnalytics.builder().userId(userDay.userId()).lastActiveDay(userDay.epochDay()).build());
+            analyticsIncrement.setAttempts(analyticsIncrement.getAttempts() + 1);
+            analyticsIncrement.setTotalObtainedPoints(analyticsIncrement.getTotalObtainedPoints() + points);
+            analyticsIncrement.setTotalTimeTaken(analyticsIncrement.getTotalTimeTaken() + timeTaken);
+            String difficulty = PartitionBoards.difficultyIn(submission.partitions());
+            if (difficulty != null)
+                analyticsIncrement.getAttemptsByDifficulty().merge(difficulty, 1L, Long::sum);
+            for (String partition : submission.partitions()) {
+                PartitionPoints partitionIncrement = partitionIncrements.computeIfAbsent(
+                        PartitionPoints.idOf(partition, submission.result().getUserId()),
+                        id -> PartitionPoints.builder()
+                                .id(id)
+                                .partition(partition)
+                                .userId(submission.result().getUserId())
+                                .username(submission.username())
+                                .build());
+                partitionIncrement.setPoints(partitionIncrement.getPoints() + points);
+            }
+        }
+
+        Step aggregates = new Step(BulkOperations.BulkMode.UNORDERED, QuizAggregate.class);
+        quizIncrements.forEach((quizId, fields) -> {
+            Update increment = new Update();
+            fields.forEach(increment::inc);
+            aggregates.pending.add(bulk -> bulk.upsert(new Query(Criteria.where("_id").is(quizId)), increment));
+        });
+
+        // ordered, as a batch spanning the start of a week has to add a user's points of the earlier week first
+        Step users = new Step(BulkOperations.BulkMode.ORDERED, User.class);
+        increments.forEach((userWeek, increment) -> users.pending.add(bulk -> bulk.updateOne(
+                new Query(Criteria.where("username").is(userWeek.username())),
+                userUpdate(userWeek.weeklyEpoch(), increment))));
+
+        Step analytics = new Step(BulkOperations.BulkMode.ORDERED, UserAnalytics.class);
+        analyticsIncrements.values().forEach(increment -> analytics.pending.add(bulk -> bulk.upsert(
+                new Query(Criteria.where("_id").is(increment.getUserId())),
+                analyticsUpdate(increment))));
+
+        Step partitions = new Step(BulkOperations.BulkMode.UNORDERED, PartitionPoints.class);
+        partitionIncrements.values().forEach(increment -> partitions.pending.add(bulk -> bulk.upsert(
+                new Query(Criteria.where("_id").is(increment.getId())),
+                new Update()
+                        .inc("points", increment.getPoints())
+                        .setOnInsert("partition", increment.getPartition())
+                        .setOnInsert("userId", increment.getUserId())
+                        .setOnInsert("username", increment.getUsername()))));
+
+        return new BatchWrite(results, List.of(aggregates, users, analytics, partitions), partitionIncrements.keySet());
+    }
+
+
+    // a pipeline update, as the weekly points depend on the stored week
+    private static AggregationUpdate userUpdate(int weeklyEpoch, int[] increment) {
+        Document storedEpoch = new Document("$ifNull", List.of("$weeklyEpoch", -1));
+        Document newWeek = new Document("$lt", List.of(storedEpoch, weeklyEpoch));
+        Document weeklyPoints = new Document("$switch", new Document()
+                .append("branches", List.of(
+                        new Document("case", new Document("$eq", List.of(storedEpoch, weeklyEpoch)))
+                                .append("then", plus("$weeklyPoints", increment[3])),
+                        new Document("case", newWeek).append("then", increment[3])))
+                .append("default", "$weeklyPoints"));
+        Document set = new Document()
+                .append("stats.totalAttempts", plus("$stats.totalAttempts", increment[0]))
+                .append("stats.correctAnswers", plus("$stats.correctAnswers", increment[1]))
+                .append("stats.incorrectAnswers", plus("$stats.incorrectAnswers", increment[2]))
+                .append("rankPoints", plus("$rankPoints", increment[3]))
+                .append("weeklyPoints", weeklyPoints)
+                .append("previousWeeklyPoints", new Document("$cond", List.of(newWeek, "$weeklyPoints", "$previousWeeklyPoints")))
+                .append("previousWeeklyEpoch", new Document("$cond", List.of(newWeek, "$weeklyEpoch", "$previousWeeklyEpoch")))
+                .append("weeklyEpoch", new Document("$max", List.of(storedEpoch, weeklyEpoch)));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    // a pipeline update too, as the streak depends on the last active day
+    private static AggregationUpdate analyticsUpdate(UserAnalytics increment) {
+        long day = increment.getLastActiveDay();
+        Document lastDay = new Document("$ifNull", List.of("$lastActiveDay", Long.MIN_VALUE));
+        Document streak = new Document("$switch", new Document()
+                .append("branches", List.of(
+                        new Document("case", new Document("$eq", List.of(lastDay, day)))
+                                .append("then", "$currentStreak"),
+                        new Document("case", new Document("$eq", List.of(lastDay, day - 1)))
+                                .append("then", plus("$currentStreak", 1)),
+                        new Document("case", new Document("$lt", List.of(lastDay, day - 1)))
+                                .append("then", 1)))
+                .append("default", "$currentStreak")); // a day already gone by, late
+        Document set = new Document()
+                .append("attempts", plus("$attempts", increment.getAttempts()))
+                .append("totalObtainedPoints", plus("$totalObtainedPoints", increment.getTotalObtainedPoints()))
+                .append("totalTimeTaken", plus("$totalTimeTaken", increment.getTotalTimeTaken()));
+        increment.getAttemptsByDifficulty().forEach((difficulty, attempts) ->
+                set.append("attemptsByDifficulty." + difficulty, plus("$attemptsByDifficulty." + difficulty, attempts)));
+        String dayKey = LocalDate.ofEpochDay(day).toString();
+        set.append("dailyActivity." + dayKey, plus("$dailyActivity." + dayKey, increment.getAttempts()))
+                .append("currentStreak", streak)
+                .append("longestStreak", new Document("$max", List.of(new Document("$ifNull", List.of("$longestStreak", 0)), streak)))
+                .append("lastActiveDay", new Document("$max", List.of(lastDay, day)));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private static Document plus(String field, Number increment) {
+        return new Document("$add", List.of(new Document("$ifNull", List.of(field, 0)), increment));
+    }
+}
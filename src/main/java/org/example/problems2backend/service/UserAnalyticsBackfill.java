@@ -0,0 +1,109 @@
+package org.example.problems2backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.UserAnalytics;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Counts the analytics of every user from their quiz results, once at the first start. From then on the submission
+ * writer keeps them up to date.
+ * <p>
+ * Runs before the submission writer is created, as the writer depends on it. Nothing recounts the analytics later, so
+ * no increment may be written between reading the results and replacing the analytics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserAnalyticsBackfill
+{
+    static final String BACKFILL = "user_analytics_backfill";
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRepository migrationRepository;
+    private final QuizRepository quizRepository;
+
+
+    // gated on a marker rather than on the analytics being empty, which a submission written first would defeat
+    @PostConstruct
+    public void warmUp() {
+        try {
+            if (!migrationRepository.existsById(BACKFILL)) {
+                backfill();
+                migrationRepository.save(Migration.builder().id(BACKFILL).doneAt(LocalDateTime.now()).build());
+            }
+        } catch (RuntimeException e) {
+            log.warn("could not backfill user analytics", e);
+        }
+    }
+
+    // a single pass over the results
+    void backfill() {
+        Map<ObjectId, String> difficulties = new HashMap<>();
+        for (QuizSummaryProjection quiz : quizRepository.findAllProjectedBy())
+            if (quiz.getDifficulty() != null)
+                difficulties.put(quiz.getId(), quiz.getDifficulty());
+
+        Map<ObjectId, UserAnalytics> analytics = new HashMap<>();
+        Query results = new Query();
+        results.fields().include("userId", "quizId", "obtainedPoints", "timeTaken", "submissionDate");
+        try (Stream<QuizResult> stream = mongoTemplate.stream(results, QuizResult.class)) {
+            stream.forEach(result -> add(analytics.computeIfAbsent(result.getUserId(),
+                    userId -> UserAnalytics.builder().userId(userId).build()), result, difficulties.get(result.getQuizId())));
+        }
+        if (analytics.isEmpty())
+            return;
+
+        BulkOperations replace = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserAnalytics.class);
+        analytics.values().forEach(userAnalytics -> {
+            countStreaks(userAnalytics);
+            replace.replaceOne(new Query(Criteria.where("_id").is(userAnalytics.getUserId())),
+                    userAnalytics, FindAndReplaceOptions.options().upsert());
+        });
+        replace.execute();
+        log.info("backfilled the analytics of {} users", analytics.size());
+    }
+
+    private static void add(UserAnalytics analytics, QuizResult result, String difficulty) {
+        analytics.setAttempts(analytics.getAttempts() + 1);
+        analytics.setTotalObtainedPoints(analytics.getTotalObtainedPoints() + (result.getObtainedPoints() != null ? result.getObtainedPoints() : 0));
+        analytics.setTotalTimeTaken(analytics.getTotalTimeTaken() + (result.getTimeTaken() != null ? result.getTimeTaken() : 0));
+        if (difficulty != null)
+            analytics.getAttemptsByDifficulty().merge(difficulty, 1L, Long::sum);
+        if (result.getSubmissionDate() != null)
+            analytics.getDailyActivity().merge(result.getSubmissionDate().toLocalDate().toString(), 1L, Long::sum);
+    }
+
+    static void countStreaks(UserAnalytics analytics) {
+        TreeSet<Long> days = new TreeSet<>();
+        analytics.getDailyActivity().keySet().forEach(day -> days.add(LocalDate.parse(day).toEpochDay()));
+        int streak = 0;
+        long previous = Long.MIN_VALUE;
+        for (long day : days) {
+            streak = day == previous + 1 ? streak + 1 : 1;
+            analytics.setLongestStreak(Math.max(analytics.getLongestStreak(), streak));
+            previous = day;
+        }
+        analytics.setCurrentStreak(streak);
+        analytics.setLastActiveDay(days.isEmpty() ? null : days.last());
+    }
+}
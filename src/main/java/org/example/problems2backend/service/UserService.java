@@ -1,29 +1,48 @@
 package org.example.problems2backend.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.bson.types.ObjectId;
 import org.example.problems2backend.exceptions.*;
 import org.example.problems2backend.models.QuizResult;
 import org.example.problems2backend.models.User;
+import org.example.problems2backend.models.UserAnalytics;
+import org.example.problems2backend.models.WeeklySnapshot;
 import org.example.problems2backend.repositories.QuizRepository;
 import org.example.problems2backend.repositories.QuizResultRepository;
+import org.example.problems2backend.repositories.UserAnalyticsRepository;
 import org.example.problems2backend.repositories.UserRepository;
+import org.example.problems2backend.repositories.projections.DifficultyProjection;
 import org.example.problems2backend.repositories.projections.UserPointsProjection;
 import org.example.problems2backend.repositories.projections.UserRankProjection;
 import org.example.problems2backend.repositories.projections.UserWeeklyRankProject;
+import org.example.problems2backend.responses.ActivityRes;
+import org.example.problems2backend.responses.AttemptHistoryRes;
+import org.example.problems2backend.responses.LeaderboardEntryRes;
 import org.example.problems2backend.responses.LeaderboardRes;
+import org.example.problems2backend.responses.PartitionLeaderboardRes;
 import org.example.problems2backend.responses.AuthRes;
 import org.example.problems2backend.responses.QuizContentRes;
 import org.example.problems2backend.responses.QuizResultRes;
 import org.example.problems2backend.responses.UserProfileRes;
+import org.example.problems2backend.responses.WeeklyLeaderboardRes;
+import org.example.problems2backend.responses.WeeklySnapshotRes;
+import org.example.problems2backend.responses.WeeklySnapshotsRes;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -37,6 +56,15 @@ public class UserService
     private final JwtService jwtService;
     private final QuizResultRepository quizResultRepository;
     private final QuizRepository quizRepository;
+    private final Leaderboard leaderboard;
+    private final WeeklySnapshots weeklySnapshots;
+    private final PartitionBoards partitionBoards;
+    private final QuizCatalogIndex quizCatalogIndex;
+    private final UserAnalyticsRepository userAnalyticsRepository;
+    private final ActivityHistogram activityHistogram;
+
+    private static final int LEADERBOARD_SIZE = 100;
+    private static final int AROUND_USER_RADIUS = 5;
 
     public AuthRes register(String username, String password) {
 
@@ -66,6 +94,7 @@ public class UserService
                 .build();
 
         userRepository.save(user);
+        leaderboard.record(user.getUsername(), user.getId(), 0);
 
         // generate jwt for the user
         return AuthRes
@@ -203,6 +232,66 @@ public class UserService
     }
 
 
+    public ActivityRes getActivity(User user, String unit) {
+        ActivityHistogram.Unit periodUnit = ActivityHistogram.Unit.of(unit);
+        return ActivityRes.builder()
+                .unit(periodUnit.name().toLowerCase())
+                .periods(activityHistogram.of(user.getId(), periodUnit))
+                .build();
+    }
+
+    /**
+     * keyset paging over the user's results, newest first: one bounded index walk per page, no skip and no count.
+     * @param cursor cursor returned with the previous page, null or empty for the first page.
+     * @param quizId only the results of this quiz when not null.
+     */
+    public AttemptHistoryRes getAttemptHistory(User user, String cursor, int pageSize, String quizId, boolean withContent) {
+        ObjectId quiz = null;
+        if (quizId != null) {
+            if (!ObjectId.isValid(quizId))
+                throw new QuizNotFoundException("quiz not found");
+            quiz = new ObjectId(quizId);
+        }
+
+        LocalDateTime beforeDate = null;
+        ObjectId beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = PageCursor.decode(cursor, 2);
+            try {
+                beforeDate = LocalDateTime.parse(key[0]);
+                beforeId = new ObjectId(key[1]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new InvalidCursorException("malformed cursor");
+            }
+        }
+
+        int limit = clampPageSize(pageSize);
+        List<QuizResult> results = quizResultRepository.findHistoryBefore(user.getId(), quiz, beforeDate, beforeId, limit + 1, withContent);
+
+        // the extra result only tells whether there is a next page
+        String nextCursor = null;
+        if (results.size() > limit) {
+            results = results.subList(0, limit);
+            QuizResult last = results.get(limit - 1);
+            nextCursor = PageCursor.encode(last.getSubmissionDate().toString(), last.getId().toHexString());
+        }
+
+        return AttemptHistoryRes.builder()
+                .attempts(results.stream().map(result -> QuizResultRes.builder()
+                        .quizId(result.getQuizId().toString())
+                        .userId(result.getUserId().toString())
+                        .timeTaken(result.getTimeTaken())
+                        .content(withContent && result.getContent() != null ? result.getContent().stream().map(e -> QuizContentRes.builder()
+                                .questionId(e.getQuestionId().toString())
+                                .correct(e.isCorrect())
+                                .build()).toList() : null)
+                        .obtainedPoints(result.getObtainedPoints())
+                        .submissionDate(result.getSubmissionDate())
+                        .build()).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     public UserProfileRes getUserProfile(String username) {
         // Fetch basic user information
         User user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("username not found"));
@@ -217,7 +306,7 @@ public class UserService
         userProfileRes.setRankTitle(user.getTitle());
         userProfileRes.setIsBanned(user.getIsBanned());
         userProfileRes.setStats(user.getStats());
-        userProfileRes.setWeeklyPoints(user.getWeeklyPoints());
+        userProfileRes.setWeeklyPoints(WeeklyEpoch.pointsIn(WeeklyEpoch.current(), user.getWeeklyPoints(), user.getWeeklyEpoch()));
 
         // Fetch quiz results for the user
         List<QuizResult> quizResults = quizResultRepository.findByUserIdOrderBySubmissionDateDesc(user.getId(), PageRequest.of(0, 10));
@@ -233,17 +322,41 @@ public class UserService
                 .submissionDate(el.getSubmissionDate())
                 .build()).toList());
 
-        // Calculate average points per quiz
-        double averagePointsPerQuiz = quizResults.isEmpty() ? 0 : (double) (userProfileRes.getRankPoints()) / quizResults.size();
-        userProfileRes.setAveragePointsPerQuiz(averagePointsPerQuiz);
-
-        // Calculate total time taken for all quizzes
-        int totalTimeTaken = quizResults.stream().mapToInt(QuizResult::getTimeTaken).sum();
-        userProfileRes.setTotalTimeTaken(totalTimeTaken);
-
-        // Calculate average time taken per quiz
-        double averageTimeTaken = quizResults.isEmpty() ? 0 : (double) totalTimeTaken / quizResults.size();
-        userProfileRes.setAverageTimeTaken(averageTimeTaken);
+        // Lifetime figures from the user's analytics, only the recent results are known before their first one is written
+        Optional<UserAnalytics> analytics = userAnalyticsRepository.findById(user.getId());
+        if (analytics.isPresent()) {
+            UserAnalytics lifetime = analytics.get();
+            userProfileRes.setAveragePointsPerQuiz(lifetime.getAttempts() == 0 ? 0 : (double) lifetime.getTotalObtainedPoints() / lifetime.getAttempts());
+            userProfileRes.setTotalTimeTaken((int) Math.min(lifetime.getTotalTimeTaken(), Integer.MAX_VALUE));
+            userProfileRes.setAverageTimeTaken(lifetime.getAttempts() == 0 ? 0 : (double) lifetime.getTotalTimeTaken() / lifetime.getAttempts());
+            userProfileRes.setQuizzesByDifficulty(lifetime.getAttemptsByDifficulty());
+            userProfileRes.setDailyActivity(lifetime.getDailyActivity().entrySet().stream()
+                    .collect(Collectors.toMap(day -> LocalDate.parse(day.getKey()), Map.Entry::getValue, Long::sum, TreeMap::new)));
+            // a streak not carried on by yesterday is over
+            long today = LocalDate.now().toEpochDay();
+            boolean streakGoing = lifetime.getLastActiveDay() != null && lifetime.getLastActiveDay() >= today - 1;
+            userProfileRes.setCurrentStreak(streakGoing ? lifetime.getCurrentStreak() : 0);
+            userProfileRes.setLongestStreak(lifetime.getLongestStreak());
+        } else {
+            // Calculate average points per quiz
+            double averagePointsPerQuiz = quizResults.isEmpty() ? 0 : (double) (userProfileRes.getRankPoints()) / quizResults.size();
+            userProfileRes.setAveragePointsPerQuiz(averagePointsPerQuiz);
+
+            // Calculate total time taken for all quizzes
+            int totalTimeTaken = quizResults.stream().mapToInt(QuizResult::getTimeTaken).sum();
+            userProfileRes.setTotalTimeTaken(totalTimeTaken);
+
+            // Calculate average time taken per quiz
+            double averageTimeTaken = quizResults.isEmpty() ? 0 : (double) totalTimeTaken / quizResults.size();
+            userProfileRes.setAverageTimeTaken(averageTimeTaken);
+
+            // Calculate the number of quizzes taken by difficulty level, results of deleted quizzes are left out
+            Map<ObjectId, String> difficulties = difficultiesOf(quizResults.stream().map(QuizResult::getQuizId).collect(Collectors.toSet()));
+            Map<String, Long> quizzesByDifficulty = quizResults.stream()
+                    .filter(result -> difficulties.containsKey(result.getQuizId()))
+                    .collect(Collectors.groupingBy(result -> difficulties.get(result.getQuizId()), Collectors.counting()));
+            userProfileRes.setQuizzesByDifficulty(quizzesByDifficulty);
+        }
 
         // Calculate the number of correct and incorrect answers
         int totalCorrectAnswers = user.getStats().getCorrectAnswers();
@@ -254,15 +367,9 @@ public class UserService
                 (double) totalCorrectAnswers / (totalCorrectAnswers + totalIncorrectAnswers) * 100;
         userProfileRes.setAccuracyRate(accuracyRate);
 
-        // Calculate the number of quizzes taken by difficulty level
-        Map<String, Long> quizzesByDifficulty = quizResults.stream()
-                .collect(Collectors.groupingBy(result -> quizRepository.findDifficultyById(result.getQuizId().toString()).getDifficulty(), Collectors.counting()));
-        userProfileRes.setQuizzesByDifficulty(quizzesByDifficulty);
-
-
-        // Calculate the number of quizzes taken over time
-        Map<LocalDateTime, Long> quizzesOverTime = quizResults.stream()
-                .collect(Collectors.groupingBy(QuizResult::getSubmissionDate, Collectors.counting()));
+        // Calculate the number of quizzes taken each week of the user's whole history
+        Map<LocalDateTime, Long> quizzesOverTime = activityHistogram.of(user.getId(), ActivityHistogram.Unit.WEEK).entrySet().stream()
+                .collect(Collectors.toMap(week -> week.getKey().atStartOfDay(), Map.Entry::getValue, Long::sum, TreeMap::new));
         userProfileRes.setQuizzesOverTime(quizzesOverTime);
 
         // Calculate the user's rank title based on total points
@@ -280,12 +387,49 @@ public class UserService
         return userProfileRes;
     }
 
+    // from the catalog index, the quizzes it does not know in one query
+    private Map<ObjectId, String> difficultiesOf(Set<ObjectId> quizIds) {
+        Map<ObjectId, String> difficulties = quizCatalogIndex.difficultiesOf(quizIds);
+        if (difficulties.size() < quizIds.size()) {
+            List<ObjectId> missing = quizIds.stream().filter(quizId -> !difficulties.containsKey(quizId)).toList();
+            for (DifficultyProjection quiz : quizRepository.findDifficultiesByIds(missing))
+                if (quiz.getDifficulty() != null)
+                    difficulties.put(quiz.getId(), quiz.getDifficulty());
+        }
+        return difficulties;
+    }
+
     public LeaderboardRes getLeaderboard(User user)
     {
+        // Answer from the in-memory boards once they are built
+        if (leaderboard.isReady()) {
+            String username = user.getUsername();
+            long userRank = leaderboard.rankOf(Leaderboard.Board.OVERALL, username);
+            long userWeeklyRank = leaderboard.rankOf(Leaderboard.Board.WEEKLY, username);
+            Long rankPoints = leaderboard.pointsOf(Leaderboard.Board.OVERALL, username);
+            Long weeklyPoints = leaderboard.pointsOf(Leaderboard.Board.WEEKLY, username);
+            return LeaderboardRes
+                    .builder()
+                    .rank(toRankMap(leaderboard.top(Leaderboard.Board.OVERALL, LEADERBOARD_SIZE)))
+                    .weeklyRank(toRankMap(leaderboard.top(Leaderboard.Board.WEEKLY, LEADERBOARD_SIZE)))
+                    .userPoints(new LeaderboardUserPoints(username,
+                            rankPoints != null ? rankPoints.toString() : null,
+                            weeklyPoints != null ? weeklyPoints.toString() : null))
+                    .userRank(userRank > 0 ? userRank : null)
+                    .userWeeklyRank(userWeeklyRank > 0 ? userWeeklyRank : null)
+                    .aroundUser(toEntries(leaderboard.around(Leaderboard.Board.OVERALL, username, AROUND_USER_RADIUS)))
+                    .aroundUserWeekly(toEntries(leaderboard.around(Leaderboard.Board.WEEKLY, username, AROUND_USER_RADIUS)))
+                    .build();
+        }
 
-        Map<String, Integer> rank = userRepository.findAllUsersWithRank().stream().collect(Collectors.toMap(UserRankProjection::getUsername, UserRankProjection::getRankPoints));
-        Map<String, Integer> weeklyRank = userRepository.findAllUsersWithWeeklyRank().stream().collect(Collectors.toMap(UserWeeklyRankProject::getUsername, UserWeeklyRankProject::getWeeklyPoints));
-        UserPointsProjection userPointsProjection = userRepository.findUsernameWithRankAndWeeklyRankPoints(user.getUsername());
+        Map<String, Integer> rank = userRepository.findAllUsersWithRank().stream().collect(Collectors.toMap(UserRankProjection::getUsername, UserRankProjection::getRankPoints, (a, b) -> a, LinkedHashMap::new));
+        int weeklyEpoch = WeeklyEpoch.current();
+        Map<String, Integer> weeklyRank = userRepository.findAllUsersWithWeeklyRank(weeklyEpoch).stream().collect(Collectors.toMap(UserWeeklyRankProject::getUsername, UserWeeklyRankProject::getWeeklyPoints, (a, b) -> a, LinkedHashMap::new));
+        UserPointsProjection userPointsProjection = userRepository.findPointsByUsername(user.getUsername())
+                .map(points -> new LeaderboardUserPoints(points.getUsername(),
+                        points.getRankPoints() != null ? points.getRankPoints().toString() : null,
+                        Integer.toString(WeeklyEpoch.pointsIn(weeklyEpoch, points.getWeeklyPoints(), points.getWeeklyEpoch()))))
+                .orElse(null);
 
 
         return LeaderboardRes
@@ -295,4 +439,93 @@ public class UserService
                 .userPoints(userPointsProjection)
                 .build();
     }
+
+    public PartitionLeaderboardRes getPartitionLeaderboard(String partition, User user) {
+        PartitionBoards.Standing standing = partitionBoards.standingOf(partition, user.getUsername(), user.getId());
+        return PartitionLeaderboardRes
+                .builder()
+                .partition(partition)
+                .top(toEntries(partitionBoards.top(partition, LEADERBOARD_SIZE)))
+                .userRank(standing.rank() > 0 ? standing.rank() : null)
+                .userPoints(standing.rank() > 0 ? standing.points() : null)
+                .aroundUser(toEntries(partitionBoards.around(partition, user.getUsername(), AROUND_USER_RADIUS)))
+                .build();
+    }
+
+    public WeeklySnapshotsRes getWeeklySnapshots(int page, int pageSize) {
+        List<WeeklySnapshot> weeks = weeklySnapshots.weeks(Math.max(page, 1) - 1, clampPageSize(pageSize));
+        return WeeklySnapshotsRes
+                .builder()
+                .weeks(weeks.stream()
+                        .map(week -> WeeklySnapshotRes.builder()
+                                .week(week.getEpoch())
+                                .weekStart(week.getWeekStart())
+                                .users(week.getUsers())
+                                .build())
+                        .toList())
+                .page(Math.max(page, 1))
+                .pageSize(clampPageSize(pageSize))
+                .build();
+    }
+
+    public WeeklyLeaderboardRes getWeeklyLeaderboard(int week, int page, int pageSize, User user) {
+        WeeklyBoard board = weeklySnapshots.board(week);
+        int size = clampPageSize(pageSize);
+        List<WeeklyBoard.Standing> standings = board.range((long) (Math.max(page, 1) - 1) * size + 1, size);
+
+        // the board only knows user ids
+        Map<ObjectId, String> usernames = userRepository.findUsernamesByIds(standings.stream().map(WeeklyBoard.Standing::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, User::getUsername));
+
+        WeeklyBoard.Standing userStanding = board.standingOf(user.getId());
+        return WeeklyLeaderboardRes
+                .builder()
+                .week(week)
+                .weekStart(WeeklyEpoch.startOf(week))
+                .users(board.size())
+                .page(Math.max(page, 1))
+                .pageSize(size)
+                .entries(standings.stream()
+                        .map(standing -> LeaderboardEntryRes.builder()
+                                .position(standing.rank())
+                                .username(usernames.get(standing.userId()))
+                                .points(standing.points())
+                                .build())
+                        .toList())
+                .userRank(userStanding != null ? userStanding.rank() : null)
+                .userPoints(userStanding != null ? userStanding.points() : null)
+                .build();
+    }
+
+    private static int clampPageSize(int pageSize) {
+        return Math.min(Math.max(pageSize, 1), LEADERBOARD_SIZE);
+    }
+
+    private static Map<String, Integer> toRankMap(List<RankTree.Entry> entries) {
+        Map<String, Integer> rank = new LinkedHashMap<>(); // keeps the rank order
+        for (RankTree.Entry entry : entries)
+            rank.put(entry.username(), Math.toIntExact(entry.points()));
+        return rank;
+    }
+
+    private static List<LeaderboardEntryRes> toEntries(List<RankTree.Entry> entries) {
+        return entries.stream()
+                .map(entry -> LeaderboardEntryRes.builder()
+                        .position(entry.rank())
+                        .username(entry.username())
+                        .points(entry.points())
+                        .build())
+                .toList();
+    }
+
+    // the caller's points, with the weekly points as of this week
+    @Value
+    private static class LeaderboardUserPoints
+        implements UserPointsProjection
+    {
+        String username;
+        String rankPoints;
+        String weeklyPoints;
+    }
 }
@@ -0,0 +1,147 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Final standings of a week, by points highest first and ties broken by the older user id as on the live board.
+ * <p>
+ * Encoded as a version byte and the user count, then the points in rank order as varints, the first one whole and
+ * every next one as its difference to the previous, then the user ids in rank order, 12 bytes each. Points of a
+ * week being small and close together, a user takes about 13 bytes. Once decoded, a rank is an index and a
+ * user's rank is a binary search over the ids in id order.
+ */
+public final class WeeklyBoard
+{
+    private static final byte VERSION = 1;
+    private static final int ID_BYTES = 12;
+
+    private final ObjectId[] userIds; // in rank order
+    private final int[] points; // in rank order
+    private final int[] byUserId; // indexes into the above, in user id order
+
+
+    /**
+     * @param rank position on the board, starting at 1.
+     */
+    public record Standing(long rank, ObjectId userId, int points) {}
+
+
+    private WeeklyBoard(ObjectId[] userIds, int[] points) {
+        this.userIds = userIds;
+        this.points = points;
+        Integer[] order = new Integer[userIds.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> userIds[i]));
+        this.byUserId = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    public static WeeklyBoard of(Map<ObjectId, Integer> pointsByUserId) {
+        List<Map.Entry<ObjectId, Integer>> ranked = new ArrayList<>(pointsByUserId.entrySet());
+        ranked.sort(Map.Entry.<ObjectId, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        ObjectId[] userIds = new ObjectId[ranked.size()];
+        int[] points = new int[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            userIds[i] = ranked.get(i).getKey();
+            points[i] = Math.max(0, ranked.get(i).getValue());
+        }
+        return new WeeklyBoard(userIds, points);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the bytes are not an encoded board.
+     */
+    public static WeeklyBoard decode(byte[] encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            if (buffer.get() != VERSION)
+                throw new IllegalArgumentException("unknown weekly board version");
+            int size = readVarint(buffer);
+            int[] points = new int[size];
+            for (int i = 0; i < size; i++)
+                points[i] = i == 0 ? readVarint(buffer) : points[i - 1] - readVarint(buffer);
+            ObjectId[] userIds = new ObjectId[size];
+            byte[] id = new byte[ID_BYTES];
+            for (int i = 0; i < size; i++) {
+                buffer.get(id);
+                userIds[i] = new ObjectId(id);
+            }
+            return new WeeklyBoard(userIds, points);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated weekly board", e);
+        }
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + 14 * size());
+        out.write(VERSION);
+        writeVarint(out, size());
+        for (int i = 0; i < size(); i++)
+            writeVarint(out, i == 0 ? points[0] : points[i - 1] - points[i]);
+        for (ObjectId userId : userIds)
+            out.writeBytes(userId.toByteArray());
+        return out.toByteArray();
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    /**
+     * @param from first rank to read, starting at 1.
+     * @return up to count standings in rank order.
+     */
+    public List<Standing> range(long from, int count) {
+        int start = (int) Math.min(Math.max(from, 1) - 1, size());
+        int end = (int) Math.min((long) start + Math.max(count, 0), size());
+        List<Standing> standings = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            standings.add(new Standing(i + 1, userIds[i], points[i]));
+        return standings;
+    }
+
+    /**
+     * @return the user's standing, null when the user is not on the board.
+     */
+    public Standing standingOf(ObjectId userId) {
+        int low = 0;
+        int high = byUserId.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int index = byUserId[middle];
+            int compared = userIds[index].compareTo(userId);
+            if (compared == 0)
+                return new Standing(index + 1, userIds[index], points[index]);
+            if (compared < 0)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return null;
+    }
+
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("malformed varint in weekly board");
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.problems2backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Weeks numbered from the one of 1970-01-01, each starting on Monday at midnight in the server's time zone.
+ * Weekly points are stored along with the week they were earned in, so that they read as zero once that week is over
+ * and no reset has to rewrite every user.
+ */
+public final class WeeklyEpoch
+{
+    private WeeklyEpoch() {}
+
+
+    public static int current() {
+        return of(LocalDate.now());
+    }
+
+    public static int of(LocalDateTime dateTime) {
+        return of(dateTime.toLocalDate());
+    }
+
+    public static int of(LocalDate date) {
+        return (int) Math.floorDiv(date.toEpochDay() + 3, 7); // 1970-01-01 is a Thursday
+    }
+
+    /**
+     * @return the Monday the week starts on.
+     */
+    public static LocalDate startOf(int epoch) {
+        return LocalDate.ofEpochDay(7L * epoch - 3);
+    }
+
+    /**
+     * @return the stored weekly points as of the week, zero when they were earned in another week.
+     */
+    public static int pointsIn(int epoch, Integer points, Integer pointsEpoch) {
+        return points != null && pointsEpoch != null && pointsEpoch == epoch ? points : 0;
+    }
+}
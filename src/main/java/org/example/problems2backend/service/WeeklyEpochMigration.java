@@ -0,0 +1,49 @@
+package org.example.problems2backend.service;
+
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stamps the weekly points stored before they had a {@link WeeklyEpoch} with the current one, once. They were reset
+ * every Monday then, so they are all of the current week; left without a week they would read as zero and be replaced
+ * at the user's next submission. Runs before the submission writer is created, as the writer depends on it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeeklyEpochMigration
+{
+    static final String MIGRATION = "weekly_epoch";
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRepository migrationRepository;
+
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            if (migrationRepository.existsById(MIGRATION))
+                return;
+            UpdateResult stamped = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("weeklyEpoch").is(null).and("weeklyPoints").gt(0)),
+                    new Update().set("weeklyEpoch", WeeklyEpoch.current()),
+                    User.class);
+            migrationRepository.save(Migration.builder().id(MIGRATION).doneAt(LocalDateTime.now()).build());
+            log.info("stamped the weekly points of {} users with the current week", stamped.getModifiedCount());
+        } catch (RuntimeException e) {
+            log.warn("could not stamp weekly points with their week", e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.problems2backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.WeeklySnapshotNotFoundException;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.models.WeeklySnapshot;
+import org.example.problems2backend.repositories.WeeklySnapshotRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Archives the weekly leaderboard of every past week as a {@link WeeklyBoard}, in one document per week.
+ * Users keep the weekly points of the week before their current one, so the board of the past week can be read
+ * back from the users at any time during the next week, whichever instance gets to it first.
+ * Recently read boards are kept decoded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeeklySnapshots
+{
+    private static final int CACHED_BOARDS = 8;
+
+    private final MongoTemplate mongoTemplate;
+    private final WeeklySnapshotRepository weeklySnapshotRepository;
+
+    private final Map<Integer, WeeklyBoard> boards = new LinkedHashMap<>(16, 0.75f, true) { // least recently read first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, WeeklyBoard> eldest) {
+            return size() > CACHED_BOARDS;
+        }
+    };
+
+
+    // catches up on a rollover missed while down
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        archive(WeeklyEpoch.current() - 1);
+    }
+
+    // a few minutes into the week, so that the last submissions of the past one are written
+    @Scheduled(cron = "0 5 0 * * MON")
+    public void archivePastWeek() {
+        archive(WeeklyEpoch.current() - 1);
+    }
+
+    void archive(int epoch) {
+        try {
+            if (weeklySnapshotRepository.existsById(epoch))
+                return;
+
+            Map<ObjectId, Integer> points = new HashMap<>();
+            Query users = new Query(new Criteria().orOperator(
+                    Criteria.where("weeklyEpoch").is(epoch),
+                    Criteria.where("previousWeeklyEpoch").is(epoch)));
+            users.fields().include("weeklyPoints", "weeklyEpoch", "previousWeeklyPoints", "previousWeeklyEpoch");
+            try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+                stream.forEach(user -> points.put(user.getId(),
+                        WeeklyEpoch.pointsIn(epoch, user.getWeeklyPoints(), user.getWeeklyEpoch())
+                                + WeeklyEpoch.pointsIn(epoch, user.getPreviousWeeklyPoints(), user.getPreviousWeeklyEpoch())));
+            }
+            if (points.isEmpty())
+                return;
+
+            WeeklyBoard board = WeeklyBoard.of(points);
+            weeklySnapshotRepository.insert(WeeklySnapshot.builder()
+                    .epoch(epoch)
+                    .weekStart(WeeklyEpoch.startOf(epoch))
+                    .users(board.size())
+                    .board(board.encode())
+                    .build());
+            log.info("archived the weekly leaderboard of the week of {}, {} users", WeeklyEpoch.startOf(epoch), board.size());
+        } catch (DuplicateKeyException e) {
+            // archived by another instance meanwhile
+        } catch (RuntimeException e) {
+            log.warn("could not archive the weekly leaderboard of the week of {}", WeeklyEpoch.startOf(epoch), e);
+        }
+    }
+
+    /**
+     * @return archived weeks without their boards, latest first.
+     */
+    public List<WeeklySnapshot> weeks(int page, int pageSize) {
+        return weeklySnapshotRepository.findWeeks(PageRequest.of(page, pageSize));
+    }
+
+    /**
+     * @throws WeeklySnapshotNotFoundException when the week is not archived.
+     */
+    public WeeklyBoard board(int epoch) {
+        synchronized (boards) {
+            WeeklyBoard board = boards.get(epoch);
+            if (board != null)
+                return board;
+        }
+        WeeklySnapshot snapshot = weeklySnapshotRepository.findById(epoch)
+                .orElseThrow(() -> new WeeklySnapshotNotFoundException("no leaderboard archived for that week"));
+        WeeklyBoard board = WeeklyBoard.decode(snapshot.getBoard());
+        synchronized (boards) {
+            boards.put(epoch, board);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.problems2backend.models.codecs;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InternalServerErrorException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.converters.QuestionContentToDocumentConverter;
+import org.example.problems2backend.models.converters.QuestionDocumentToContentConverter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionContentDecoderTest {
+
+    private final QuestionContentDecoder decoder = new QuestionContentDecoder();
+
+    private final List<Quiz.Question.Content> contents = List.of(
+            Quiz.Question.MultipleChoice.builder().id(new ObjectId()).question("2 + 2 = ?")
+                    .options(List.of("3", "4")).correctOption(1).build(),
+            Quiz.Question.FillInTheBlank.builder().id(new ObjectId()).question("The capital of France is ...")
+                    .correctAnswer("Paris").build(),
+            Quiz.Question.MultipleSelect.builder().id(new ObjectId()).question("Even numbers?")
+                    .options(List.of("1", "2", "4")).correctOptions(List.of(1, 2)).build());
+
+    @Test
+    void whenWrittenByConverter_thenDecoderReadsIt() {
+        QuestionContentToDocumentConverter writer = new QuestionContentToDocumentConverter();
+        QuestionDocumentToContentConverter reader = new QuestionDocumentToContentConverter();
+
+        for (Quiz.Question.Content content : contents) {
+            Document document = writer.convert(content);
+            assertEquals(content, reader.convert(document));
+            assertEquals(content, decode(encodeDocument(document)));
+        }
+    }
+
+    @Test
+    void whenTypeUnknown_thenThrowException() {
+        byte[] bytes = encodeDocument(new Document("type", "ESSAY").append("question", "Why?"));
+
+        assertThrows(InternalServerErrorException.class, () -> decode(bytes));
+    }
+
+    @Test
+    void whenQuizWrittenLikeSeeder_thenDecoderReadsIt() {
+        QuestionContentToDocumentConverter writer = new QuestionContentToDocumentConverter();
+        ObjectId quizId = new ObjectId();
+        ObjectId questionId = new ObjectId();
+        Document quiz = new Document("_id", quizId)
+                .append("name", "Arithmetic")
+                .append("difficulty", "EASY")
+                .append("tags", List.of("math"))
+                .append("timeLimit", 15)
+                .append("questions", List.of(new Document("_id", questionId).append("content", writer.convert(contents.get(0)))))
+                .append("questionCount", 1)
+                .append("rules", null);
+
+        Quiz decoded = new RawBsonDocument(encodeDocument(quiz)).decode(new QuizDecoder());
+
+        assertEquals(quizId, decoded.getId());
+        assertEquals("Arithmetic", decoded.getName());
+        assertEquals("EASY", decoded.getDifficulty());
+        assertEquals(List.of("math"), decoded.getTags());
+        assertEquals(15, decoded.getTimeLimit());
+        assertEquals(1, decoded.getQuestionCount());
+        assertNull(decoded.getRules());
+        assertEquals(List.of(new Quiz.Question(questionId, contents.get(0))), decoded.getQuestions());
+    }
+
+    private static byte[] encodeDocument(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new DocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    private Quiz.Question.Content decode(byte[] bytes) {
+        try (BsonReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return decoder.decode(reader, DecoderContext.builder().build());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.problems2backend.repositories;
+
+import org.bson.Document;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.responses.QuizzesFacetsRes;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuizRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final QuizRepositoryCustomImpl repository = new QuizRepositoryCustomImpl(mongoTemplate);
+
+    @Test
+    void whenQuestionCountMissing_thenCountedAsNoQuestions() {
+        Document facets = new Document("tags", List.of())
+                .append("difficulties", List.of())
+                .append("numberOfQuestions", List.of(new Document("_id", 0).append("count", 2)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Quiz.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(facets), new Document()));
+
+        QuizzesFacetsRes res = repository.countFacetsWithFilters(null, null, null, null, null);
+
+        assertEquals(2L, res.getNumberOfQuestions().get("0-5"));
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Quiz.class), eq(Document.class));
+        Document bucket = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(1)
+                .get("$facet", Document.class).getList("numberOfQuestions", Document.class).get(0)
+                .get("$bucket", Document.class);
+        assertEquals(new Document("$ifNull", List.of("$questionCount", 0)), bucket.get("groupBy"));
+    }
+}
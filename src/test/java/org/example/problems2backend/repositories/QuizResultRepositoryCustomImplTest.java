@@ -0,0 +1,63 @@
+package org.example.problems2backend.repositories;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuizResultRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final QuizResultRepositoryCustomImpl repository = new QuizResultRepositoryCustomImpl(mongoTemplate);
+
+    @Test
+    void whenFirstPage_thenNewestFirstWithoutContent() {
+        ObjectId userId = new ObjectId();
+        when(mongoTemplate.find(any(Query.class), eq(QuizResult.class))).thenReturn(List.of());
+
+        repository.findHistoryBefore(userId, null, null, null, 21, false);
+
+        Query query = captureQuery();
+        assertEquals(new Document("userId", userId), query.getQueryObject());
+        assertEquals(new Document("submissionDate", -1).append("_id", -1), query.getSortObject());
+        assertEquals(21, query.getLimit());
+        assertEquals(new Document("content", 0), query.getFieldsObject());
+    }
+
+    @Test
+    void whenCursorAndQuiz_thenOnlyOlderResultsOfTheQuiz() {
+        ObjectId userId = new ObjectId();
+        ObjectId quizId = new ObjectId();
+        ObjectId beforeId = new ObjectId();
+        LocalDateTime beforeDate = LocalDateTime.of(2025, 3, 1, 12, 30);
+        when(mongoTemplate.find(any(Query.class), eq(QuizResult.class))).thenReturn(List.of());
+
+        repository.findHistoryBefore(userId, quizId, beforeDate, beforeId, 11, true);
+
+        Query query = captureQuery();
+        Document expected = new Document("$and", List.of(
+                new Document("userId", userId).append("quizId", quizId),
+                new Document("$or", List.of(
+                        new Document("submissionDate", new Document("$lt", beforeDate)),
+                        new Document("submissionDate", beforeDate).append("_id", new Document("$lt", beforeId))))));
+        assertEquals(expected, query.getQueryObject());
+        assertTrue(query.getFieldsObject().isEmpty());
+    }
+
+    private Query captureQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(QuizResult.class));
+        return query.getValue();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.problems2backend.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ActivityHistogramTest {
+
+    @Test
+    void whenPeriodsMissing_thenCountedAsZero() {
+        TreeMap<LocalDate, Long> counts = new TreeMap<>(Map.of(
+                LocalDate.of(2025, 1, 27), 3L,
+                LocalDate.of(2025, 2, 10), 1L));
+
+        TreeMap<LocalDate, Long> dense = ActivityHistogram.dense(counts, ActivityHistogram.Unit.WEEK, LocalDate.of(2025, 2, 17));
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 27), LocalDate.of(2025, 2, 3), LocalDate.of(2025, 2, 10), LocalDate.of(2025, 2, 17)),
+                List.copyOf(dense.keySet()));
+        assertEquals(List.of(3L, 0L, 1L, 0L), List.copyOf(dense.values()));
+    }
+
+    @Test
+    void whenNothingSubmitted_thenNoPeriods() {
+        assertTrue(ActivityHistogram.dense(new TreeMap<>(), ActivityHistogram.Unit.DAY, LocalDate.now()).isEmpty());
+    }
+
+    @Test
+    void periodsStartOnMondayAndFirstOfMonth() {
+        LocalDate sunday = LocalDate.of(2025, 3, 2);
+        assertEquals(LocalDate.of(2025, 2, 24), ActivityHistogram.Unit.WEEK.startOf(sunday));
+        assertEquals(LocalDate.of(2025, 3, 1), ActivityHistogram.Unit.MONTH.startOf(sunday));
+        assertEquals(sunday, ActivityHistogram.Unit.DAY.startOf(sunday));
+    }
+
+    @Test
+    void whenAskedAgain_thenOnlyOpenPeriodsCounted() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        LocalDate longAgo = LocalDate.now().minusMonths(3).withDayOfMonth(1);
+        Document period = new Document("_id", Date.from(longAgo.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .append("count", 7);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(QuizResult.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(period), new Document()))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        ActivityHistogram histogram = new ActivityHistogram(mongoTemplate);
+        ObjectId userId = new ObjectId();
+
+        TreeMap<LocalDate, Long> first = histogram.of(userId, ActivityHistogram.Unit.MONTH);
+        TreeMap<LocalDate, Long> second = histogram.of(userId, ActivityHistogram.Unit.MONTH);
+
+        assertEquals(first, second);
+        assertEquals(7L, second.get(longAgo));
+        assertEquals(4, second.size());
+
+        ArgumentCaptor<Aggregation> aggregations = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate, times(2)).aggregate(aggregations.capture(), eq(QuizResult.class), eq(Document.class));
+        assertFalse(aggregations.getAllValues().get(0).toString().contains("submissionDate\" : {\"$gte"));
+        assertTrue(aggregations.getAllValues().get(1).toString().contains("$gte"));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidAnswerFormatException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.requests.AnswerReq;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerKeyTest {
+
+    private final Quiz.Question multipleChoice = question(Quiz.Question.MultipleChoice.builder()
+            .id(new ObjectId()).options(List.of("3", "4")).correctOption(1).build());
+    private final Quiz.Question fillInTheBlank = question(Quiz.Question.FillInTheBlank.builder()
+            .id(new ObjectId()).correctAnswer("Paris").build());
+    private final Quiz.Question multipleSelect = question(Quiz.Question.MultipleSelect.builder()
+            .id(new ObjectId()).options(List.of("1", "2", "4")).correctOptions(List.of(1, 2)).build());
+
+    private final AnswerKey answerKey = AnswerKey.compile(List.of(multipleChoice, fillInTheBlank, multipleSelect));
+
+    @Test
+    void whenAnswersInAnyOrder_thenGradeByQuestion() {
+        boolean[] correct = answerKey.grade(List.of(
+                AnswerReq.builder().questionId(multipleSelect.getId().toString()).correctOptions(List.of(2, 1)).build(),
+                AnswerReq.builder().questionId(multipleChoice.getId().toString()).selectedOption(0).build(),
+                AnswerReq.builder().questionId(fillInTheBlank.getId().toString()).correctAnswer("  paris ").build()));
+
+        assertArrayEquals(new boolean[]{false, true, true}, correct);
+    }
+
+    @Test
+    void whenMultipleSelectIncomplete_thenIncorrect() {
+        int slot = answerKey.slotOf(multipleSelect.getId().toString());
+
+        assertFalse(answerKey.isCorrect(slot, AnswerReq.builder().correctOptions(List.of(1)).build()));
+        assertFalse(answerKey.isCorrect(slot, AnswerReq.builder().correctOptions(List.of(1, 2, 99)).build()));
+        assertFalse(answerKey.isCorrect(slot, AnswerReq.builder().build()));
+    }
+
+    @Test
+    void whenAnswersDoNotCoverQuestions_thenThrowException() {
+        AnswerReq first = AnswerReq.builder().questionId(multipleChoice.getId().toString()).selectedOption(1).build();
+        AnswerReq unknown = AnswerReq.builder().questionId(new ObjectId().toString()).build();
+
+        assertThrows(InvalidAnswerFormatException.class, () -> answerKey.grade(List.of(first)));
+        assertThrows(InvalidAnswerFormatException.class, () -> answerKey.grade(List.of(first, first, first)));
+        assertThrows(InvalidAnswerFormatException.class, () -> answerKey.grade(List.of(first, unknown, unknown)));
+    }
+
+    private static Quiz.Question question(Quiz.Question.Content content) {
+        return Quiz.Question.builder().id(new ObjectId()).content(content).build();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidAttemptTokenException;
+import org.example.problems2backend.exceptions.InvalidQuizStateException;
+import org.example.problems2backend.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttemptTokensTest {
+
+    private final User user = User.builder().id(new ObjectId()).username("user").build();
+    private final CompiledQuizCache.CompiledQuiz quiz = quiz(new ObjectId(), 1);
+    private AttemptTokens attemptTokens;
+
+    @BeforeEach
+    void setUp() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtAttemptSecret", "attempt-secret-attempt-secret-attempt-secret");
+        attemptTokens = new AttemptTokens(jwtService, "token");
+    }
+
+    @Test
+    void whenTokenRedeemed_thenCarriesTheAttempt() {
+        Instant now = Instant.now();
+        AttemptToken attempt = attemptTokens.redeem(attemptTokens.issue(quiz, user, now), quiz, user);
+
+        assertEquals(user.getId(), attempt.userId());
+        assertEquals(quiz.id(), attempt.quizId());
+        assertTrue(Duration.between(attempt.startedAt(), now).abs().toMillis() < 1);
+        assertFalse(attempt.deadline().isBefore(now.plus(Duration.ofMinutes(quiz.timeLimit()))));
+    }
+
+    @Test
+    void whenTokenRedeemedTwice_thenRejectUnlessReleased() {
+        String token = attemptTokens.issue(quiz, user, Instant.now());
+        AttemptToken attempt = attemptTokens.redeem(token, quiz, user);
+
+        assertThrows(InvalidQuizStateException.class, () -> attemptTokens.redeem(token, quiz, user));
+        attemptTokens.release(attempt);
+        assertNotNull(attemptTokens.redeem(token, quiz, user));
+    }
+
+    @Test
+    void whenTokenForged_orForAnotherAttempt_thenReject() {
+        String token = attemptTokens.issue(quiz, user, Instant.now());
+        User otherUser = User.builder().id(new ObjectId()).username("other").build();
+
+        assertThrows(InvalidAttemptTokenException.class, () -> attemptTokens.redeem(null, quiz, user));
+        assertThrows(InvalidAttemptTokenException.class, () -> attemptTokens.redeem(token + "x", quiz, user));
+        assertThrows(InvalidAttemptTokenException.class, () -> attemptTokens.redeem(token, quiz, otherUser));
+        assertThrows(InvalidAttemptTokenException.class, () -> attemptTokens.redeem(token, quiz(new ObjectId(), 1), user));
+        assertThrows(InvalidQuizStateException.class, () -> attemptTokens.redeem(token, quiz(quiz.id(), 2), user));
+    }
+
+    @Test
+    void whenTokenExpired_thenReject() {
+        String token = attemptTokens.issue(quiz, user, Instant.now().minus(Duration.ofMinutes(quiz.timeLimit() + 1)));
+
+        assertThrows(InvalidAttemptTokenException.class, () -> attemptTokens.redeem(token, quiz, user));
+    }
+
+    private static CompiledQuizCache.CompiledQuiz quiz(ObjectId id, int version) {
+        return new CompiledQuizCache.CompiledQuiz(id, 10, 2, new byte[0], AnswerKey.compile(List.of()), version, List.of());
+    }
+}
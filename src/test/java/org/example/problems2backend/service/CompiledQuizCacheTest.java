@@ -0,0 +1,108 @@
+package org.example.problems2backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.QuizNotFoundException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompiledQuizCacheTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    private CompiledQuizCache compiledQuizCache;
+
+    @BeforeEach
+    void setUp() {
+        compiledQuizCache = new CompiledQuizCache(quizRepository, new ObjectMapper(), 1, 600_000);
+    }
+
+    @Test
+    void whenCompiled_thenQuestionsHaveNoAnswers() {
+        Quiz quiz = quiz();
+        when(quizRepository.findDecodedById(quiz.getId())).thenReturn(Optional.of(quiz));
+
+        String json = new String(compiledQuizCache.get(quiz.getId().toString()).questionsJson(), StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("\"questionsWithoutCorrectAnswers\""));
+        assertTrue(json.contains("\"MULTIPLE_CHOICE\""));
+        assertTrue(json.contains("\"correctOption\":null"));
+    }
+
+    @Test
+    void whenCachedOrInvalidated_thenLoadOnlyWhenNeeded() {
+        Quiz quiz = quiz();
+        String quizId = quiz.getId().toString();
+        when(quizRepository.findDecodedById(quiz.getId())).thenReturn(Optional.of(quiz));
+
+        compiledQuizCache.get(quizId);
+        compiledQuizCache.get(quizId);
+        verify(quizRepository, times(1)).findDecodedById(quiz.getId());
+
+        compiledQuizCache.invalidate(quiz.getId());
+        compiledQuizCache.get(quizId);
+        verify(quizRepository, times(2)).findDecodedById(quiz.getId());
+    }
+
+    @Test
+    void whenExpired_thenLoadAgain() {
+        compiledQuizCache = new CompiledQuizCache(quizRepository, new ObjectMapper(), 1, 0);
+        Quiz quiz = quiz();
+        String quizId = quiz.getId().toString();
+        when(quizRepository.findDecodedById(quiz.getId())).thenReturn(Optional.of(quiz));
+
+        compiledQuizCache.get(quizId);
+        compiledQuizCache.get(quizId);
+
+        verify(quizRepository, times(2)).findDecodedById(quiz.getId());
+    }
+
+    @Test
+    void whenFull_thenEvictLeastRecentlyUsed() {
+        Quiz first = quiz();
+        Quiz second = quiz();
+        when(quizRepository.findDecodedById(first.getId())).thenReturn(Optional.of(first));
+        when(quizRepository.findDecodedById(second.getId())).thenReturn(Optional.of(second));
+
+        compiledQuizCache.get(first.getId().toString());
+        compiledQuizCache.get(second.getId().toString());
+        compiledQuizCache.get(first.getId().toString());
+
+        verify(quizRepository, times(2)).findDecodedById(first.getId());
+    }
+
+    @Test
+    void whenQuizIdMalformed_thenThrowNotFound() {
+        assertThrows(QuizNotFoundException.class, () -> compiledQuizCache.get("not-an-id"));
+        verifyNoInteractions(quizRepository);
+    }
+
+    private static Quiz quiz() {
+        return Quiz.builder()
+                .id(new ObjectId())
+                .questions(List.of(Quiz.Question.builder()
+                        .id(new ObjectId())
+                        .content(Quiz.Question.MultipleChoice.builder()
+                                .id(new ObjectId())
+                                .question("2 + 2 = ?")
+                                .options(List.of("3", "4"))
+                                .correctOption(1)
+                                .build())
+                        .build()))
+                .build();
+    }
+}
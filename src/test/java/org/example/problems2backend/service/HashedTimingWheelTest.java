@@ -0,0 +1,59 @@
+package org.example.problems2backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    // 8 buckets of 10ms, so deadlines past 80ms need several turns
+    private final HashedTimingWheel wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void whenDeadlineReached_thenRunTaskOnce() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        Instant deadline = Instant.now().plusMillis(150);
+
+        HashedTimingWheel.Timeout timeout = wheel.schedule(deadline, fired::countDown);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertFalse(Instant.now().isBefore(deadline));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void whenCancelled_thenNeverRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch later = new CountDownLatch(1);
+
+        HashedTimingWheel.Timeout timeout = wheel.schedule(Instant.now().plusMillis(50), runs::incrementAndGet);
+        wheel.schedule(Instant.now().plusMillis(100), later::countDown);
+        assertTrue(timeout.cancel());
+
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    void whenDeadlinePassed_thenRunOnNextTick() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+
+        wheel.schedule(Instant.now().minusSeconds(1), fired::countDown);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.AttemptSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAttemptSessionStoreTest {
+
+    private final InMemoryAttemptSessionStore store = new InMemoryAttemptSessionStore();
+
+    @Test
+    void whenAttemptRunning_thenRejectAnotherStart() {
+        assertTrue(store.start(session(Duration.ofMinutes(10))));
+        assertFalse(store.start(session(Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void whenAttemptFinished_thenFinishOnlyOnce() {
+        AttemptSession session = session(Duration.ofMinutes(10));
+        store.start(session);
+
+        assertTrue(store.finish("user", new ObjectId()).isEmpty());
+        assertEquals(session, store.finish("user", session.getQuizId()).orElseThrow());
+        assertTrue(store.finish("user", session.getQuizId()).isEmpty());
+        assertTrue(store.start(session(Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void whenDeadlinePassed_thenAttemptIsGone() {
+        AttemptSession session = session(Duration.ofMinutes(-1));
+        store.start(session);
+
+        assertTrue(store.finish("user", session.getQuizId()).isEmpty());
+        assertTrue(store.start(session(Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void whenSubmitting_thenOnlyOneSubmitReservesTheAttempt() {
+        AttemptSession session = session(Duration.ofMinutes(10));
+        store.start(session);
+
+        AttemptSession reserved = store.beginSubmit("user", session.getQuizId()).orElseThrow();
+        assertTrue(store.beginSubmit("user", session.getQuizId()).isEmpty());
+        assertTrue(store.finish("user", session.getQuizId()).isEmpty());
+        assertFalse(store.start(session(Duration.ofMinutes(10))));
+
+        store.completeSubmit(reserved);
+        assertTrue(store.beginSubmit("user", session.getQuizId()).isEmpty());
+        assertTrue(store.start(session(Duration.ofMinutes(10))));
+    }
+
+    @Test
+    void whenSubmitAborted_thenAttemptRunsAgain() {
+        AttemptSession session = session(Duration.ofMinutes(10));
+        store.start(session);
+
+        store.abortSubmit(store.beginSubmit("user", session.getQuizId()).orElseThrow());
+
+        assertEquals(session, store.beginSubmit("user", session.getQuizId()).orElseThrow());
+    }
+
+    private static AttemptSession session(Duration timeLeft) {
+        Instant now = Instant.now();
+        return AttemptSession.builder()
+                .username("user")
+                .quizId(new ObjectId())
+                .startedAt(now)
+                .deadline(now.plus(timeLeft))
+                .build();
+    }
+}
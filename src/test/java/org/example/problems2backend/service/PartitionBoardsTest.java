@@ -0,0 +1,83 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.PartitionPoints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionBoardsTest {
+
+    private static final String JAVA = PartitionBoards.tag("java");
+
+    @Mock private MongoTemplate mongoTemplate;
+
+    private PartitionBoards partitionBoards;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("partition"), eq(PartitionPoints.class), eq(String.class)))
+                .thenReturn(List.of());
+        partitionBoards = new PartitionBoards(mongoTemplate, 2);
+        partitionBoards.rebuild();
+    }
+
+    @Test
+    void whenMoreUsersThanBoardSize_thenOnlyTheBestKeptAndTheOthersCounted() {
+        PartitionPoints alice = points("alice", 30);
+        PartitionPoints bob = points("bob", 10);
+        PartitionPoints carol = points("carol", 20);
+        partitionBoards.update(List.of(alice, bob, carol));
+
+        assertEquals(List.of(new RankTree.Entry(1, "alice", 30), new RankTree.Entry(2, "carol", 20)),
+                partitionBoards.top(JAVA, 10));
+        assertEquals(new PartitionBoards.Standing(2, 20), partitionBoards.standingOf(JAVA, "carol", carol.getUserId()));
+        verifyNoMoreInteractions(ignoreStubs(mongoTemplate));
+
+        // bob is spilled, his rank is counted
+        when(mongoTemplate.findById(PartitionPoints.idOf(JAVA, bob.getUserId()), PartitionPoints.class)).thenReturn(bob);
+        when(mongoTemplate.count(any(Query.class), eq(PartitionPoints.class))).thenReturn(2L);
+        assertEquals(new PartitionBoards.Standing(3, 10), partitionBoards.standingOf(JAVA, "bob", bob.getUserId()));
+    }
+
+    @Test
+    void whenSpilledUserOvertakesTheLastKept_thenTakesTheirPlace() {
+        PartitionPoints bob = points("bob", 10);
+        partitionBoards.update(List.of(points("alice", 30), bob, points("carol", 20)));
+
+        bob.setPoints(25);
+        partitionBoards.update(List.of(bob));
+
+        assertEquals(List.of("alice", "bob"), partitionBoards.top(JAVA, 10).stream().map(RankTree.Entry::username).toList());
+    }
+
+    @Test
+    void whenUserNeverPlayedPartition_thenNotRanked() {
+        partitionBoards.update(List.of(points("alice", 30)));
+
+        assertEquals(-1, partitionBoards.standingOf(JAVA, "bob", new ObjectId()).rank());
+        assertEquals(-1, partitionBoards.standingOf(PartitionBoards.tag("go"), "alice", new ObjectId()).rank());
+    }
+
+    private static PartitionPoints points(String username, long points) {
+        ObjectId userId = new ObjectId();
+        return PartitionPoints.builder()
+                .id(PartitionPoints.idOf(JAVA, userId))
+                .partition(JAVA)
+                .userId(userId)
+                .username(username)
+                .points(points)
+                .build();
+    }
+}
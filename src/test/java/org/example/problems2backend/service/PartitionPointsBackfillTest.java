@@ -0,0 +1,82 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.PartitionPoints;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionPointsBackfillTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private MigrationRepository migrationRepository;
+    @Mock private QuizRepository quizRepository;
+    @Mock private BulkOperations replaceOps;
+    @InjectMocks private PartitionPointsBackfill partitionPointsBackfill;
+
+    @Test
+    void whenNotBackfilledYet_thenPointsSummedPerUserOverTheQuizPartitions() {
+        Quiz quiz = Quiz.builder().id(new ObjectId()).difficulty("HARD").tags(List.of("java")).build();
+        User alice = User.builder().id(new ObjectId()).username("alice").build();
+        when(migrationRepository.existsById(PartitionPointsBackfill.BACKFILL)).thenReturn(false);
+        when(quizRepository.findAllProjectedBy()).thenReturn(List.of(
+                new SpelAwareProxyProjectionFactory().createProjection(QuizSummaryProjection.class, quiz)));
+        when(mongoTemplate.stream(any(Query.class), eq(QuizResult.class))).thenReturn(Stream.of(
+                result(alice.getId(), quiz.getId(), 10),
+                result(alice.getId(), quiz.getId(), 30),
+                result(alice.getId(), new ObjectId(), 50))); // a deleted quiz
+        when(mongoTemplate.stream(any(Query.class), eq(User.class))).thenReturn(Stream.of(alice));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PartitionPoints.class)).thenReturn(replaceOps);
+
+        partitionPointsBackfill.warmUp();
+
+        ArgumentCaptor<PartitionPoints> replaced = ArgumentCaptor.forClass(PartitionPoints.class);
+        verify(replaceOps, times(2)).replaceOne(any(Query.class), replaced.capture(), any(FindAndReplaceOptions.class));
+        Map<String, PartitionPoints> byPartition = replaced.getAllValues().stream()
+                .collect(Collectors.toMap(PartitionPoints::getPartition, Function.identity()));
+        assertEquals(40, byPartition.get("difficulty:HARD").getPoints());
+        assertEquals(40, byPartition.get("tag:java").getPoints());
+        assertEquals("alice", byPartition.get("tag:java").getUsername());
+        verify(replaceOps).execute();
+        verify(migrationRepository).save(any());
+    }
+
+    @Test
+    void whenBackfilledBefore_thenNothingCounted() {
+        when(migrationRepository.existsById(PartitionPointsBackfill.BACKFILL)).thenReturn(true);
+
+        partitionPointsBackfill.warmUp();
+
+        verifyNoInteractions(mongoTemplate, quizRepository);
+    }
+
+    private static QuizResult result(ObjectId userId, ObjectId quizId, int points) {
+        return QuizResult.builder().id(new ObjectId()).userId(userId).quizId(quizId).obtainedPoints(points).build();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.problems2backend.service;
+
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizAggregatesTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private MigrationRepository migrationRepository;
+    @InjectMocks private QuizAggregates quizAggregates;
+
+    @Test
+    void whenNotBackfilledYet_thenRecountAndMarkDone() {
+        when(migrationRepository.existsById(QuizAggregates.BACKFILL)).thenReturn(false);
+        when(mongoTemplate.stream(any(Query.class), eq(QuizResult.class))).thenReturn(Stream.empty());
+
+        quizAggregates.warmUp();
+
+        ArgumentCaptor<Migration> migration = ArgumentCaptor.forClass(Migration.class);
+        verify(migrationRepository).save(migration.capture());
+        assertEquals(QuizAggregates.BACKFILL, migration.getValue().getId());
+    }
+
+    @Test
+    void whenBackfilledBefore_thenNotRecounted() {
+        when(migrationRepository.existsById(QuizAggregates.BACKFILL)).thenReturn(true);
+
+        quizAggregates.warmUp();
+
+        verifyNoInteractions(mongoTemplate);
+        verify(migrationRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidCursorException;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizRes;
+import org.example.problems2backend.responses.QuizzesFacetsRes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizCatalogIndexTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    private QuizCatalogIndex quizCatalogIndex;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private final Quiz javaBasics = quiz("Java Basics", "Variables, loops and classes", "EASY", List.of("Java"), 5);
+    private final Quiz javaStreams = quiz("Streams Deep Dive", "Collectors and lazy pipelines in java", "HARD", List.of("Java", "Functional"), 12);
+    private final Quiz pythonBasics = quiz("Python Basics", "Lists, loops and functions", "EASY", List.of("Python"), 8);
+
+    @BeforeEach
+    void setUp() {
+        quizCatalogIndex = new QuizCatalogIndex(quizRepository);
+        when(quizRepository.findAllProjectedBy()).thenReturn(Stream.of(javaBasics, javaStreams, pythonBasics)
+                .map(quiz -> projectionFactory.createProjection(QuizSummaryProjection.class, quiz))
+                .toList());
+        quizCatalogIndex.rebuild();
+    }
+
+    @Test
+    void whenSearchTermGiven_thenRankNameMatchesFirst() {
+        List<QuizRes> quizzes = quizCatalogIndex.search("java", null, null, null, null, 0, 10, false).quizzes();
+
+        assertEquals(2, quizzes.size());
+        assertEquals("Java Basics", quizzes.get(0).getName());
+        assertEquals("Streams Deep Dive", quizzes.get(1).getName());
+    }
+
+    @Test
+    void whenSearchTermIsPrefix_thenMatchTerms() {
+        QuizCatalogIndex.SearchResult result = quizCatalogIndex.search("pyth", null, null, null, null, 0, 10, false);
+
+        assertEquals(1, result.total());
+        assertEquals("Python Basics", result.quizzes().get(0).getName());
+    }
+
+    @Test
+    void whenFiltersGiven_thenApplyAllOfThem() {
+        assertEquals(2, quizCatalogIndex.search("basics", "easy", null, null, null, 0, 10, false).total());
+        assertEquals(1, quizCatalogIndex.search(null, null, List.of("Python", "Functional"), 10, null, 0, 10, false).total());
+        assertEquals(0, quizCatalogIndex.search("loops", "HARD", null, null, null, 0, 10, false).total());
+    }
+
+    @Test
+    void whenFacetsRequested_thenCountOverAllMatches() {
+        QuizzesFacetsRes facets = quizCatalogIndex.search("basics", null, null, null, null, 0, 1, true).facets();
+
+        assertEquals(2L, facets.getDifficulties().get("EASY"));
+        assertEquals(1L, facets.getTags().get("Java"));
+        assertEquals(1L, facets.getTags().get("Python"));
+        assertEquals(1L, facets.getNumberOfQuestions().get("0-5"));
+        assertEquals(1L, facets.getNumberOfQuestions().get("6-10"));
+        assertEquals(0L, facets.getNumberOfQuestions().get("21+"));
+    }
+
+    @Test
+    void whenPaging_thenReturnSliceAndTotal() {
+        QuizCatalogIndex.SearchResult result = quizCatalogIndex.search(null, null, null, null, null, 2, 2, false);
+
+        assertEquals(3, result.total());
+        assertEquals(1, result.quizzes().size());
+    }
+
+    @Test
+    void whenPagingWithCursor_thenVisitEveryMatchOnce() {
+        QuizCatalogIndex.SearchResult first = quizCatalogIndex.searchAfter("basics java", null, null, null, null, "", 1, false);
+        assertNull(first.nextCursor());
+
+        first = quizCatalogIndex.searchAfter(null, null, null, null, null, "", 2, false);
+        assertEquals(2, first.quizzes().size());
+        assertNotNull(first.nextCursor());
+
+        QuizCatalogIndex.SearchResult second = quizCatalogIndex.searchAfter(null, null, null, null, null, first.nextCursor(), 2, false);
+        assertEquals(1, second.quizzes().size());
+        assertNull(second.nextCursor());
+        assertFalse(first.quizzes().contains(second.quizzes().get(0)));
+    }
+
+    @Test
+    void whenCursorIsMalformed_thenThrowException() {
+        assertThrows(InvalidCursorException.class, () ->
+                quizCatalogIndex.searchAfter(null, null, null, null, null, "not-a-cursor", 2, false)
+        );
+    }
+
+    @Test
+    void whenCursorOfDatabaseFallback_thenThrowException() {
+        String fallbackCursor = PageCursor.encode("id", javaBasics.getId().toHexString());
+
+        InvalidCursorException e = assertThrows(InvalidCursorException.class, () ->
+                quizCatalogIndex.searchAfter(null, null, null, null, null, fallbackCursor, 2, false)
+        );
+        assertTrue(e.getMessage().contains("another ordering"));
+    }
+
+    @Test
+    void whenQuizChanges_thenIndexFollows() {
+        javaBasics.setName("Kotlin Basics");
+        javaBasics.setTags(List.of("Kotlin"));
+        quizCatalogIndex.upsert(javaBasics);
+        quizCatalogIndex.remove(pythonBasics.getId());
+
+        assertEquals(1, quizCatalogIndex.search("kotlin", null, null, null, null, 0, 10, false).total());
+        assertEquals(0, quizCatalogIndex.search("python", null, null, null, null, 0, 10, false).total());
+        assertEquals(Collections.emptyList(), quizCatalogIndex.search(null, null, List.of("Python"), null, null, 0, 10, false).quizzes());
+    }
+
+    @Test
+    void whenQuizChangesDuringRebuild_thenChangeKept() {
+        List<QuizSummaryProjection> stale = Stream.of(javaBasics, javaStreams, pythonBasics)
+                .map(quiz -> projectionFactory.createProjection(QuizSummaryProjection.class, quiz))
+                .toList();
+        when(quizRepository.findAllProjectedBy()).thenAnswer(invocation -> {
+            quizCatalogIndex.remove(pythonBasics.getId()); // lands after the quizzes were read
+            return stale;
+        });
+
+        quizCatalogIndex.rebuild();
+
+        assertEquals(0, quizCatalogIndex.search("python", null, null, null, null, 0, 10, false).total());
+        assertEquals(2, quizCatalogIndex.search(null, null, null, null, null, 0, 10, false).total());
+    }
+
+    @Test
+    void whenDifficultiesAsked_thenOnlyIndexedQuizzesAnswered() {
+        quizCatalogIndex.remove(pythonBasics.getId());
+
+        assertEquals(Map.of(javaBasics.getId(), "EASY", javaStreams.getId(), "HARD"),
+                quizCatalogIndex.difficultiesOf(List.of(javaBasics.getId(), javaStreams.getId(), pythonBasics.getId())));
+    }
+
+    private static Quiz quiz(String name, String description, String difficulty, List<String> tags, int questions) {
+        return Quiz.builder()
+                .id(new ObjectId())
+                .name(name)
+                .description(description)
+                .difficulty(difficulty)
+                .tags(tags)
+                .questions(Collections.nCopies(questions, Quiz.Question.builder().build()))
+                .questionCount(questions)
+                .build();
+    }
+}
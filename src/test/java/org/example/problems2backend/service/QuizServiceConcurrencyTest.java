@@ -0,0 +1,116 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.exceptions.InvalidQuizStateException;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.QuizAggregateRepository;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.QuizResultRepository;
+import org.example.problems2backend.repositories.UserRepository;
+import org.example.problems2backend.requests.SubmitAnswersReq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizServiceConcurrencyTest {
+
+    @Mock private QuizRepository quizRepository;
+    @Mock private QuizResultRepository quizResultRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private QuizCatalogIndex quizCatalogIndex;
+    @Mock private QuizSuggestIndex quizSuggestIndex;
+    @Mock private QuizStatsSnapshot quizStatsSnapshot;
+    @Mock private CompiledQuizCache compiledQuizCache;
+    @Mock private AttemptExpiry attemptExpiry;
+    @Mock private AttemptTokens attemptTokens;
+    @Mock private SubmissionWriter submissionWriter;
+    @Mock private QuizAggregateRepository quizAggregateRepository;
+    @Mock private Leaderboard leaderboard;
+
+    private final ObjectId quizId = new ObjectId();
+    private final AtomicInteger credited = new AtomicInteger();
+    private QuizService quizService;
+
+    @BeforeEach
+    void setUp() {
+        quizService = new QuizService(quizRepository, quizResultRepository, userRepository,
+                quizCatalogIndex, quizSuggestIndex, quizStatsSnapshot, compiledQuizCache,
+                new InMemoryAttemptSessionStore(), attemptExpiry, attemptTokens, submissionWriter, quizAggregateRepository, leaderboard);
+        lenient().when(compiledQuizCache.get(quizId.toHexString()))
+                .thenReturn(new CompiledQuizCache.CompiledQuiz(quizId, 10, 0, new byte[0], AnswerKey.compile(List.of()), 0, List.of()));
+        lenient().doAnswer(invocation -> credited.incrementAndGet())
+                .when(submissionWriter).submit(any());
+    }
+
+    @Test
+    void whenSameAttemptSubmittedConcurrently_thenCreditedOnce() throws Exception {
+        User user = User.builder().id(new ObjectId()).username("user").build();
+        quizService.startQuiz(quizId.toHexString(), user);
+
+        assertEquals(1, race(16, () -> quizService.submitAnswer(quizId.toHexString(), answers(), user, null)));
+        assertEquals(1, credited.get());
+    }
+
+    @Test
+    void whenUsersStartAndSubmitConcurrently_thenEverySuccessfulSubmitIsCreditedOnce() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            users.add(User.builder().id(new ObjectId()).username("user" + i).build());
+
+        AtomicInteger next = new AtomicInteger();
+        int submitted = race(64 * users.size(), () -> {
+            User user = users.get(next.getAndIncrement() % users.size());
+            try {
+                quizService.startQuiz(quizId.toHexString(), user);
+            } catch (InvalidQuizStateException ignored) {
+                // another thread runs this user's attempt, race it to the submit
+            }
+            quizService.submitAnswer(quizId.toHexString(), answers(), user, null);
+        });
+
+        assertTrue(submitted > 0);
+        assertEquals(submitted, credited.get());
+    }
+
+    // runs the task from many threads at once, returns how many runs did not throw InvalidQuizStateException
+    private static int race(int runs, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs; i++)
+                futures.add(executor.submit(() -> {
+                    go.await();
+                    try {
+                        task.run();
+                        succeeded.incrementAndGet();
+                    } catch (InvalidQuizStateException ignored) {
+                    }
+                    return null;
+                }));
+            go.countDown();
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    private static SubmitAnswersReq answers() {
+        return SubmitAnswersReq.builder().answers(List.of()).build();
+    }
+}
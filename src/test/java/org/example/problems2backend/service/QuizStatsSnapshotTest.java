@@ -0,0 +1,117 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.QuizzesStatsRes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizStatsSnapshotTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    private QuizStatsSnapshot quizStatsSnapshot;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private final Quiz javaBasics = quiz("EASY", List.of("Java"), 5);
+    private final Quiz javaStreams = quiz("HARD", List.of("Java", "Functional"), 12);
+
+    @BeforeEach
+    void setUp() {
+        quizStatsSnapshot = new QuizStatsSnapshot(quizRepository);
+        when(quizRepository.findAllProjectedBy()).thenReturn(List.of(
+                projectionFactory.createProjection(QuizSummaryProjection.class, javaBasics),
+                projectionFactory.createProjection(QuizSummaryProjection.class, javaStreams)));
+        quizStatsSnapshot.reconcile();
+    }
+
+    @Test
+    void whenReconciled_thenCountWholeCatalog() {
+        QuizzesStatsRes stats = quizStatsSnapshot.get();
+
+        assertEquals(2L, stats.getTotalQuizzes());
+        assertEquals(17L, stats.getTotalQuestions());
+        assertEquals(1L, stats.getTotalEasyQuizzes());
+        assertEquals(0L, stats.getTotalMediumQuizzes());
+        assertEquals(1L, stats.getTotalHardQuizzes());
+        assertEquals(2L, stats.getTotalTags().get("Java"));
+    }
+
+    @Test
+    void whenQuizUpdated_thenReplaceItsContribution() {
+        javaBasics.setDifficulty("medium");
+        javaBasics.setTags(List.of("Python"));
+        javaBasics.setQuestionCount(7);
+        quizStatsSnapshot.upsert(javaBasics);
+
+        QuizzesStatsRes stats = quizStatsSnapshot.get();
+        assertEquals(2L, stats.getTotalQuizzes());
+        assertEquals(19L, stats.getTotalQuestions());
+        assertEquals(0L, stats.getTotalEasyQuizzes());
+        assertEquals(1L, stats.getTotalMediumQuizzes());
+        assertEquals(1L, stats.getTotalTags().get("Java"));
+        assertEquals(1L, stats.getTotalTags().get("Python"));
+    }
+
+    @Test
+    void whenQuizRemoved_thenDropEmptyTags() {
+        quizStatsSnapshot.remove(javaStreams.getId());
+
+        QuizzesStatsRes stats = quizStatsSnapshot.get();
+        assertEquals(1L, stats.getTotalQuizzes());
+        assertEquals(5L, stats.getTotalQuestions());
+        assertEquals(0L, stats.getTotalHardQuizzes());
+        assertFalse(stats.getTotalTags().containsKey("Functional"));
+    }
+
+    @Test
+    void whenTagsHoldNull_thenCountOtherTags() {
+        Quiz untagged = quiz("EASY", Arrays.asList("Java", null), 3);
+        quizStatsSnapshot.upsert(untagged);
+
+        QuizzesStatsRes stats = quizStatsSnapshot.get();
+        assertEquals(3L, stats.getTotalQuizzes());
+        assertEquals(3L, stats.getTotalTags().get("Java"));
+        assertFalse(stats.getTotalTags().containsKey(null));
+    }
+
+    @Test
+    void whenQuizRemovedDuringReconcile_thenRemovalKept() {
+        when(quizRepository.findAllProjectedBy()).thenAnswer(invocation -> {
+            quizStatsSnapshot.remove(javaStreams.getId()); // lands after the quizzes were read
+            return List.of(
+                    projectionFactory.createProjection(QuizSummaryProjection.class, javaBasics),
+                    projectionFactory.createProjection(QuizSummaryProjection.class, javaStreams));
+        });
+
+        quizStatsSnapshot.reconcile();
+
+        assertEquals(1L, quizStatsSnapshot.get().getTotalQuizzes());
+        assertEquals(0L, quizStatsSnapshot.get().getTotalHardQuizzes());
+    }
+
+    private static Quiz quiz(String difficulty, List<String> tags, int questions) {
+        return Quiz.builder()
+                .id(new ObjectId())
+                .difficulty(difficulty)
+                .tags(tags)
+                .questionCount(questions)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.Quiz;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.example.problems2backend.repositories.QuizResultRepository;
+import org.example.problems2backend.repositories.projections.QuizSummaryProjection;
+import org.example.problems2backend.responses.SuggestionRes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuizSuggestIndexTest {
+
+    @Mock
+    private QuizRepository quizRepository;
+    @Mock
+    private QuizResultRepository quizResultRepository;
+
+    private QuizSuggestIndex quizSuggestIndex;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private final Quiz javaBasics = quiz("Java Basics", "Java");
+    private final Quiz javascriptPromises = quiz("JavaScript Promises", "JavaScript");
+
+    @BeforeEach
+    void setUp() {
+        quizSuggestIndex = new QuizSuggestIndex(quizRepository, quizResultRepository);
+        quizSuggestIndex.upsert(javaBasics);
+        quizSuggestIndex.upsert(javascriptPromises);
+    }
+
+    @Test
+    void whenPrefixGiven_thenSuggestNamesAndTags() {
+        List<String> texts = quizSuggestIndex.suggest("jav", 10).stream().map(SuggestionRes::getText).toList();
+
+        assertEquals(List.of("Java", "JavaScript", "Java Basics", "JavaScript Promises"), texts);
+    }
+
+    @Test
+    void whenPrefixStartsLaterWord_thenSuggestName() {
+        List<SuggestionRes> suggestions = quizSuggestIndex.suggest("prom", 10);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("QUIZ", suggestions.get(0).getType());
+        assertEquals(javascriptPromises.getId().toString(), suggestions.get(0).getQuizId());
+    }
+
+    @Test
+    void whenAttemptsRecorded_thenRankByPopularity() {
+        quizSuggestIndex.recordAttempt(javascriptPromises.getId());
+        assertEquals(0L, quizSuggestIndex.suggest("java", 1).get(0).getPopularity()); // not applied yet
+        quizSuggestIndex.applyAttempts();
+
+        List<SuggestionRes> suggestions = quizSuggestIndex.suggest("java", 2);
+
+        assertEquals(2, suggestions.size());
+        assertEquals(1L, suggestions.get(0).getPopularity());
+        assertEquals(1L, suggestions.get(1).getPopularity());
+    }
+
+    @Test
+    void whenQuizRemoved_thenDropItsSuggestions() {
+        quizSuggestIndex.remove(javascriptPromises.getId());
+
+        assertTrue(quizSuggestIndex.suggest("prom", 10).isEmpty());
+        assertEquals(2, quizSuggestIndex.suggest("j", 10).size());
+    }
+
+    @Test
+    void whenQuizChangesDuringRebuild_thenChangeKept() {
+        when(quizResultRepository.countAttemptsByQuiz()).thenReturn(List.of());
+        when(quizRepository.findAllProjectedBy()).thenAnswer(invocation -> {
+            quizSuggestIndex.remove(javascriptPromises.getId()); // lands after the quizzes were read
+            return Stream.of(javaBasics, javascriptPromises)
+                    .map(quiz -> projectionFactory.createProjection(QuizSummaryProjection.class, quiz))
+                    .toList();
+        });
+
+        quizSuggestIndex.rebuild();
+
+        assertTrue(quizSuggestIndex.suggest("prom", 10).isEmpty());
+        assertEquals(1, quizSuggestIndex.suggest("java b", 10).size());
+    }
+
+    private static Quiz quiz(String name, String tag) {
+        return Quiz.builder()
+                .id(new ObjectId())
+                .name(name)
+                .tags(List.of(tag))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankTreeTest {
+
+    @Test
+    void whenPointsChange_thenRanksMatchASortedList() {
+        RankTree tree = new RankTree();
+        Map<String, ObjectId> ids = new HashMap<>();
+        Map<String, Long> points = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 5_000; step++) {
+            String username = "user" + random.nextInt(300);
+            ObjectId id = ids.computeIfAbsent(username, k -> new ObjectId());
+            if (random.nextInt(20) == 0) {
+                tree.remove(username);
+                points.remove(username);
+            } else {
+                long gained = random.nextInt(10); // many ties
+                tree.add(username, id, gained);
+                points.merge(username, gained, Long::sum);
+            }
+        }
+
+        List<String> expected = new ArrayList<>(points.keySet());
+        expected.sort(Comparator.<String>comparingLong(points::get).reversed().thenComparing(ids::get));
+
+        assertEquals(expected.size(), tree.size());
+        List<RankTree.Entry> all = tree.range(1, expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String username = expected.get(i);
+            assertEquals(new RankTree.Entry(i + 1, username, points.get(username)), all.get(i));
+            assertEquals(i + 1, tree.rankOf(username));
+        }
+    }
+
+    @Test
+    void whenRangeReadFromTheMiddle_thenStartsAtThatRank() {
+        RankTree tree = new RankTree();
+        for (int i = 1; i <= 10; i++)
+            tree.set("user" + i, new ObjectId(), i * 10);
+
+        List<RankTree.Entry> range = tree.range(4, 3);
+
+        assertEquals(List.of(new RankTree.Entry(4, "user7", 70), new RankTree.Entry(5, "user6", 60),
+                new RankTree.Entry(6, "user5", 50)), range);
+        assertEquals(2, tree.range(9, 5).size());
+        assertTrue(tree.range(11, 5).isEmpty());
+        assertEquals(-1, tree.rankOf("nobody"));
+    }
+
+    @Test
+    void whenCleared_thenSameUsersWithNoPoints() {
+        RankTree tree = new RankTree();
+        tree.set("alice", new ObjectId(), 30);
+        tree.set("bob", new ObjectId(), 50);
+
+        RankTree cleared = tree.cleared();
+
+        assertEquals(2, cleared.size());
+        assertEquals(0L, cleared.pointsOf("bob"));
+        assertEquals(1, cleared.rankOf("alice")); // ties go to the older user
+        assertEquals(50L, tree.pointsOf("bob"));
+    }
+}
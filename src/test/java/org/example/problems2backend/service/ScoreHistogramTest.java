@@ -0,0 +1,50 @@
+package org.example.problems2backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreHistogramTest {
+
+    @Test
+    void whenValuesGrow_thenBucketsGrowWithBoundedRelativeError() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value += 1 + value / 50) {
+            int bucket = ScoreHistogram.bucketOf(value);
+            assertTrue(bucket >= previous && bucket < ScoreHistogram.BUCKETS);
+            previous = bucket;
+
+            Map<String, Long> counts = Map.of(ScoreHistogram.key(value), 1L);
+            long representative = ScoreHistogram.from(counts).valueAt(0.5);
+            assertTrue(Math.abs(representative - value) <= Math.max(0, value / 16), value + " ~ " + representative);
+        }
+        assertEquals(ScoreHistogram.bucketOf((1 << 20) - 1), ScoreHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(0, ScoreHistogram.bucketOf(-5));
+    }
+
+    @Test
+    void whenScoresCounted_thenPercentilesAndQuantilesFollowThem() {
+        Map<String, Long> counts = new HashMap<>();
+        for (int points = 1; points <= 10; points++)
+            counts.merge(ScoreHistogram.key(points), 10L, Long::sum); // 10 results of each score from 1 to 10
+
+        ScoreHistogram histogram = ScoreHistogram.from(counts);
+
+        assertEquals(100, histogram.total());
+        assertEquals(45.0, histogram.percentileOf(5));
+        assertEquals(0.0, histogram.percentileOf(0));
+        assertEquals(5, histogram.valueAt(0.5));
+        assertEquals(9, histogram.valueAt(0.9));
+    }
+
+    @Test
+    void whenNothingCounted_thenNoPercentile() {
+        ScoreHistogram histogram = ScoreHistogram.from(null);
+
+        assertNull(histogram.percentileOf(3));
+        assertNull(histogram.valueAt(0.5));
+    }
+}
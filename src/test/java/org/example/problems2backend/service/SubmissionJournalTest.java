@@ -0,0 +1,86 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.QuizResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenReopened_thenUnwrittenSubmissionsAreRecovered() throws IOException {
+        Submission first = submission("alice");
+        Submission second = submission("bob");
+        Submission third = submission("carol");
+        try (SubmissionJournal journal = SubmissionJournal.open(directory, new ArrayList<>())) {
+            long seq = journal.append(first);
+            journal.append(second);
+            journal.append(third);
+            journal.writtenThrough(seq);
+        }
+
+        List<SubmissionJournal.Entry> recovered = new ArrayList<>();
+        try (SubmissionJournal journal = SubmissionJournal.open(directory, recovered)) {
+            assertEquals(List.of(second, third), recovered.stream().map(SubmissionJournal.Entry::submission).toList());
+            assertTrue(journal.append(first) > recovered.get(1).seq());
+        }
+    }
+
+    @Test
+    void whenEverythingWritten_thenNothingIsRecovered() throws IOException {
+        try (SubmissionJournal journal = SubmissionJournal.open(directory, new ArrayList<>())) {
+            journal.append(submission("alice"));
+            journal.writtenThrough(journal.append(submission("bob")));
+        }
+
+        List<SubmissionJournal.Entry> recovered = new ArrayList<>();
+        SubmissionJournal.open(directory, recovered).close();
+        assertTrue(recovered.isEmpty());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count()); // the checkpoint and the empty current segment
+        }
+    }
+
+    @Test
+    void whenLastWriteTorn_thenEarlierSubmissionsAreRecovered() throws IOException {
+        Submission first = submission("alice");
+        try (SubmissionJournal journal = SubmissionJournal.open(directory, new ArrayList<>())) {
+            journal.append(first);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        List<SubmissionJournal.Entry> recovered = new ArrayList<>();
+        SubmissionJournal.open(directory, recovered).close();
+        assertEquals(List.of(first), recovered.stream().map(SubmissionJournal.Entry::submission).toList());
+    }
+
+    private static Submission submission(String username) {
+        QuizResult result = QuizResult.builder()
+                .id(new ObjectId())
+                .userId(new ObjectId())
+                .quizId(new ObjectId())
+                .submissionDate(LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000))
+                .obtainedPoints(12)
+                .timeTaken(95)
+                .content(List.of(new QuizResult.Content(new ObjectId(), true), new QuizResult.Content(new ObjectId(), false)))
+                .build();
+        return new Submission(username, result, 1, 1, List.of("difficulty:HARD", "tag:java"));
+    }
+}
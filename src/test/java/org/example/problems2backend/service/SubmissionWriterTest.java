@@ -0,0 +1,205 @@
+package org.example.problems2backend.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.problems2backend.models.PartitionPoints;
+import org.example.problems2backend.models.QuizAggregate;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.models.UserAnalytics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionWriterTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private BulkOperations resultOps;
+    @Mock private BulkOperations aggregateOps;
+    @Mock private BulkOperations userOps;
+    @Mock private BulkOperations partitionOps;
+    @Mock private BulkOperations analyticsOps;
+    @Mock private PartitionBoards partitionBoards;
+
+    @TempDir
+    Path directory;
+
+    private SubmissionWriter submissionWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizResult.class)).thenReturn(resultOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizAggregate.class)).thenReturn(aggregateOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, User.class)).thenReturn(userOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, UserAnalytics.class)).thenReturn(analyticsOps);
+        when(resultOps.insert(anyList())).thenReturn(resultOps);
+        submissionWriter = new SubmissionWriter(mongoTemplate, partitionBoards, 100, 10_000, 100, directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        submissionWriter.stop();
+    }
+
+    @Test
+    void whenSubmissionsQueued_thenWrittenAsOneBatchWithIncrementsMergedPerQuizAndUser() throws Exception {
+        ObjectId quizId = new ObjectId();
+        submissionWriter.submit(submission("alice", quizId, 10, 2, 1));
+        submissionWriter.submit(submission("bob", quizId, 5, 1, 2));
+        submissionWriter.submit(submission("alice", new ObjectId(), 20, 3, 0));
+        submissionWriter.stop(); // drains
+
+        ArgumentCaptor<List<QuizResult>> results = ArgumentCaptor.captor();
+        verify(resultOps).insert(results.capture());
+        assertEquals(3, results.getValue().size());
+
+        ArgumentCaptor<Update> aggregateUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(aggregateOps, times(2)).upsert(any(Query.class), aggregateUpdates.capture());
+        var quiz = aggregateUpdates.getAllValues().get(0).getUpdateObject().get("$inc", Document.class);
+        assertEquals(2L, quiz.get("attempts"));
+        assertEquals(15L, quiz.get("totalObtainedPoints"));
+        assertEquals(120L, quiz.get("totalTimeTaken"));
+
+        ArgumentCaptor<AggregationUpdate> updates = ArgumentCaptor.forClass(AggregationUpdate.class);
+        verify(userOps, times(2)).updateOne(any(Query.class), updates.capture());
+        var alice = updates.getAllValues().get(0).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$set", Document.class);
+        assertEquals(2, increment(alice, "stats.totalAttempts"));
+        assertEquals(5, increment(alice, "stats.correctAnswers"));
+        assertEquals(30, increment(alice, "rankPoints"));
+        assertEquals(List.of(new Document("$ifNull", List.of("$weeklyEpoch", -1)), WeeklyEpoch.current()),
+                alice.get("weeklyEpoch", Document.class).get("$max"));
+        verify(userOps).execute();
+        verify(analyticsOps, times(3)).upsert(any(Query.class), any(AggregationUpdate.class)); // every submission by another user
+        verifyNoInteractions(partitionBoards);
+    }
+
+    @Test
+    void whenSubmissionsHavePartitions_thenPointsMergedPerUserAndPartitionAndTotalsHandedToBoards() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PartitionPoints.class)).thenReturn(partitionOps);
+        List<PartitionPoints> totals = List.of(PartitionPoints.builder().partition("tag:java").points(40).build());
+        when(mongoTemplate.find(any(Query.class), eq(PartitionPoints.class))).thenReturn(totals);
+
+        ObjectId userId = new ObjectId();
+        submissionWriter.submit(submission("alice", userId, 10, List.of("difficulty:HARD", "tag:java")));
+        submissionWriter.submit(submission("alice", userId, 30, List.of("tag:java")));
+        submissionWriter.stop();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(partitionOps, times(2)).upsert(queries.capture(), updates.capture());
+        assertEquals(PartitionPoints.idOf("tag:java", userId), queries.getAllValues().get(1).getQueryObject().get("_id"));
+        assertEquals(40L, updates.getAllValues().get(1).getUpdateObject().get("$inc", Document.class).get("points"));
+        verify(partitionBoards).update(totals);
+    }
+
+    @Test
+    void whenWriteFailsPartway_thenOnlyWhatWasNotAppliedIsRetried() throws Exception {
+        submissionWriter.stop();
+        when(userOps.execute()).thenThrow(new DataAccessResourceFailureException("connection reset")).thenReturn(null);
+        submissionWriter = new SubmissionWriter(mongoTemplate, partitionBoards, 100, 1, 100, directory.resolve("retry").toString());
+
+        submissionWriter.submit(submission("alice", new ObjectId(), 10, 1, 0));
+
+        verify(analyticsOps, timeout(5_000)).execute();
+        verify(resultOps).execute();
+        verify(aggregateOps).execute();
+        verify(userOps, times(2)).execute();
+    }
+
+    @Test
+    void whenWriteConcernFails_thenAppliedWritesAreNotSentAgain() throws Exception {
+        submissionWriter.stop();
+        MongoBulkWriteException writeConcernError = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(),
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out", new BsonDocument()),
+                new ServerAddress(), Set.of());
+        when(aggregateOps.execute()).thenThrow(new DataIntegrityViolationException("write concern", writeConcernError));
+        submissionWriter = new SubmissionWriter(mongoTemplate, partitionBoards, 100, 1, 100, directory.resolve("concern").toString());
+
+        submissionWriter.submit(submission("alice", new ObjectId(), 10, 1, 0));
+
+        verify(analyticsOps, timeout(5_000)).execute();
+        verify(aggregateOps).execute();
+        verify(userOps).execute();
+    }
+
+    @Test
+    void whenBatchKeepsBeingRejected_thenSetAsideAndLaterBatchesWritten() throws Exception {
+        submissionWriter.stop();
+        when(userOps.execute())
+                .thenThrow(new InvalidDataAccessApiUsageException("rejected"))
+                .thenThrow(new InvalidDataAccessApiUsageException("rejected"))
+                .thenThrow(new InvalidDataAccessApiUsageException("rejected"))
+                .thenThrow(new InvalidDataAccessApiUsageException("rejected"))
+                .thenThrow(new InvalidDataAccessApiUsageException("rejected"))
+                .thenReturn(null);
+        Path journal = directory.resolve("rejected");
+        submissionWriter = new SubmissionWriter(mongoTemplate, partitionBoards, 100, 1, 100, journal.toString());
+
+        submissionWriter.submit(submission("alice", new ObjectId(), 10, 1, 0));
+        verify(userOps, timeout(10_000).times(5)).execute();
+        submissionWriter.submit(submission("bob", new ObjectId(), 10, 1, 0));
+
+        verify(analyticsOps, timeout(5_000)).execute(); // only reached by the second batch
+        List<Submission> setAside = SubmissionJournal.read(journal.resolve("dead-letter").resolve("1.log"));
+        assertEquals(List.of("alice"), setAside.stream().map(Submission::username).toList());
+    }
+
+    private static Object increment(Document set, String field) {
+        return set.get(field, Document.class).getList("$add", Object.class).get(1);
+    }
+
+    private static Submission submission(String username, ObjectId userId, int points, List<String> partitions) {
+        QuizResult result = QuizResult.builder()
+                .id(new ObjectId())
+                .userId(userId)
+                .quizId(new ObjectId())
+                .submissionDate(LocalDateTime.now())
+                .obtainedPoints(points)
+                .timeTaken(60)
+                .content(List.of())
+                .build();
+        return new Submission(username, result, 1, 0, partitions);
+    }
+
+    private static Submission submission(String username, ObjectId quizId, int points, int correct, int incorrect) {
+        QuizResult result = QuizResult.builder()
+                .id(new ObjectId())
+                .userId(new ObjectId())
+                .quizId(quizId)
+                .submissionDate(LocalDateTime.now())
+                .obtainedPoints(points)
+                .timeTaken(60)
+                .content(List.of())
+                .build();
+        return new Submission(username, result, correct, incorrect, List.of());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.problems2backend.service;
+
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.QuizResult;
+import org.example.problems2backend.models.UserAnalytics;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.example.problems2backend.repositories.QuizRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserAnalyticsBackfillTest {
+
+    @Test
+    void whenDaysActive_thenStreaksCountDaysInARow() {
+        UserAnalytics analytics = UserAnalytics.builder()
+                .dailyActivity(Map.of(
+                        "2025-02-26", 1L,
+                        "2025-02-27", 4L,
+                        "2025-02-28", 1L,
+                        "2025-03-01", 2L, // the month changes
+                        "2025-03-05", 1L,
+                        "2025-03-06", 3L))
+                .build();
+
+        UserAnalyticsBackfill.countStreaks(analytics);
+
+        assertEquals(4, analytics.getLongestStreak());
+        assertEquals(2, analytics.getCurrentStreak());
+        assertEquals(LocalDate.of(2025, 3, 6).toEpochDay(), analytics.getLastActiveDay());
+    }
+
+    @Test
+    void whenNeverActive_thenNoStreak() {
+        UserAnalytics analytics = UserAnalytics.builder().build();
+
+        UserAnalyticsBackfill.countStreaks(analytics);
+
+        assertEquals(0, analytics.getCurrentStreak());
+        assertEquals(0, analytics.getLongestStreak());
+        assertNull(analytics.getLastActiveDay());
+    }
+
+    @Test
+    void whenBackfillNotDoneYet_thenRunOnceAndMarkDone() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MigrationRepository migrationRepository = mock(MigrationRepository.class);
+        QuizRepository quizRepository = mock(QuizRepository.class);
+        when(migrationRepository.existsById(UserAnalyticsBackfill.BACKFILL)).thenReturn(false, true);
+        when(quizRepository.findAllProjectedBy()).thenReturn(List.of());
+        when(mongoTemplate.stream(any(Query.class), eq(QuizResult.class))).thenReturn(Stream.empty());
+        UserAnalyticsBackfill backfill = new UserAnalyticsBackfill(mongoTemplate, migrationRepository, quizRepository);
+
+        backfill.warmUp();
+        backfill.warmUp();
+
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(QuizResult.class));
+        ArgumentCaptor<Migration> migration = ArgumentCaptor.forClass(Migration.class);
+        verify(migrationRepository).save(migration.capture());
+        assertEquals(UserAnalyticsBackfill.BACKFILL, migration.getValue().getId());
+    }
+}
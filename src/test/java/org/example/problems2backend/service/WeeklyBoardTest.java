@@ -0,0 +1,49 @@
+package org.example.problems2backend.service;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyBoardTest {
+
+    @Test
+    void whenEncodedAndDecoded_thenStandingsMatchASortedList() {
+        Map<ObjectId, Integer> points = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++)
+            points.put(new ObjectId(), random.nextInt(i % 10 == 0 ? 100_000 : 50)); // many ties, a few far apart
+
+        WeeklyBoard board = WeeklyBoard.decode(WeeklyBoard.of(points).encode());
+
+        List<ObjectId> expected = new ArrayList<>(points.keySet());
+        expected.sort(Comparator.<ObjectId>comparingInt(points::get).reversed().thenComparing(Comparator.naturalOrder()));
+        assertEquals(expected.size(), board.size());
+        List<WeeklyBoard.Standing> all = board.range(1, expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ObjectId userId = expected.get(i);
+            WeeklyBoard.Standing standing = new WeeklyBoard.Standing(i + 1, userId, points.get(userId));
+            assertEquals(standing, all.get(i));
+            assertEquals(standing, board.standingOf(userId));
+        }
+        assertNull(board.standingOf(new ObjectId()));
+    }
+
+    @Test
+    void whenRangePastTheEnd_thenCutShort() {
+        WeeklyBoard board = WeeklyBoard.of(Map.of(new ObjectId(), 3, new ObjectId(), 2, new ObjectId(), 1));
+
+        assertEquals(List.of(2L, 3L), board.range(2, 5).stream().map(WeeklyBoard.Standing::rank).toList());
+        assertTrue(board.range(4, 5).isEmpty());
+        assertTrue(WeeklyBoard.decode(WeeklyBoard.of(Map.of()).encode()).range(1, 5).isEmpty());
+    }
+
+    @Test
+    void whenTruncated_thenRejected() {
+        byte[] encoded = WeeklyBoard.of(Map.of(new ObjectId(), 3, new ObjectId(), 2)).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> WeeklyBoard.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.problems2backend.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.example.problems2backend.models.Migration;
+import org.example.problems2backend.models.User;
+import org.example.problems2backend.repositories.MigrationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeeklyEpochMigrationTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private MigrationRepository migrationRepository;
+    @InjectMocks private WeeklyEpochMigration weeklyEpochMigration;
+
+    @Test
+    void whenNotMigratedYet_thenStampCurrentWeekOnPointsWithoutOne() {
+        when(migrationRepository.existsById(WeeklyEpochMigration.MIGRATION)).thenReturn(false);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(User.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        weeklyEpochMigration.migrate();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(User.class));
+        assertEquals(new Document("weeklyEpoch", null).append("weeklyPoints", new Document("$gt", 0)), query.getValue().getQueryObject());
+        assertEquals(new Document("weeklyEpoch", WeeklyEpoch.current()), update.getValue().getUpdateObject().get("$set"));
+        ArgumentCaptor<Migration> migration = ArgumentCaptor.forClass(Migration.class);
+        verify(migrationRepository).save(migration.capture());
+        assertEquals(WeeklyEpochMigration.MIGRATION, migration.getValue().getId());
+    }
+
+    @Test
+    void whenMigratedBefore_thenUsersLeftAlone() {
+        when(migrationRepository.existsById(WeeklyEpochMigration.MIGRATION)).thenReturn(true);
+
+        weeklyEpochMigration.migrate();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}